@@ -17,16 +17,23 @@
  */
 package lett.malcolm.consciouscalculator;
 
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.thymeleaf.extras.java8time.dialect.Java8TimeDialect;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 import org.thymeleaf.templateresolver.ITemplateResolver;
 
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
+import lett.malcolm.consciouscalculator.emulator.Emulator;
+import lett.malcolm.consciouscalculator.emulator.EmulatorPool;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.TickScheduler;
 import lett.malcolm.consciouscalculator.logging.NotifyingLogbackAppender;
 
 /**
@@ -60,6 +67,48 @@ public class ConsciousCalculatorApplication {
 		return appender;
 	}
 
+	/**
+	 * Emulators are pooled and reset between requests, rather than constructed for each.
+	 * @param maxSize maximum number of emulators, and so of concurrently handled commands
+	 * @return
+	 */
+	@Bean
+	public EmulatorPool emulatorPool(@Value("${emulator.pool.max-size}") int maxSize, TickScheduler tickScheduler) {
+		return new EmulatorPool(maxSize, () -> {
+			Emulator emulator = new Emulator();
+			emulator.setTickScheduler(tickScheduler);
+			return emulator;
+		});
+	}
+	
+	/**
+	 * Limits on how long each command may run, shared by all emulators.
+	 * @param tickBudget maximum ticks per command, or 0 for unlimited
+	 * @param deadlineMs maximum time per command, or 0 for unlimited
+	 * @param maxTicksPerSecond maximum rate of ticks, or 0 for unlimited
+	 * @return
+	 */
+	@Bean
+	public TickScheduler tickScheduler(@Value("${emulator.scheduler.tick-budget}") int tickBudget,
+			@Value("${emulator.scheduler.deadline-ms}") long deadlineMs,
+			@Value("${emulator.scheduler.max-ticks-per-second}") double maxTicksPerSecond) {
+		return new TickScheduler(tickBudget, deadlineMs, TimeUnit.MILLISECONDS, maxTicksPerSecond);
+	}
+	
+	/**
+	 * Threads that emulators run commands on, independently of the request threads.
+	 * @param threads maximum number of emulators running at once
+	 * @return
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor emulatorExecutor(@Value("${emulator.executor.threads}") int threads) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		executor.setThreadNamePrefix("emulator-");
+		return executor;
+	}
+
     @Bean
     public SpringTemplateEngine templateEngine(ITemplateResolver templateResolver) {
         SpringTemplateEngine templateEngine = new SpringTemplateEngine();
@@ -0,0 +1,70 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator;
+
+import java.util.Collections;
+import java.util.List;
+
+import lett.malcolm.consciouscalculator.emulator.lowlevel.StopReason;
+
+/**
+ * Outcome of running a single command.
+ * 
+ * @author Malcolm Lett
+ */
+public class CommandResult {
+	private final List<String> spoken;
+	private final StopReason stopReason;
+	private final int ticks;
+	
+	public CommandResult(List<String> spoken, StopReason stopReason, int ticks) {
+		this.spoken = Collections.unmodifiableList(spoken);
+		this.stopReason = stopReason;
+		this.ticks = ticks;
+	}
+	
+	/**
+	 * @return everything spoken in response, in order
+	 */
+	public List<String> spoken() {
+		return spoken;
+	}
+	
+	public StopReason stopReason() {
+		return stopReason;
+	}
+	
+	/**
+	 * @return false if the control loop was stopped early, so the response may be partial
+	 */
+	public boolean isComplete() {
+		return stopReason.isComplete();
+	}
+	
+	/**
+	 * @return number of ticks run
+	 */
+	public int ticks() {
+		return ticks;
+	}
+	
+	@Override
+	public String toString() {
+		return "CommandResult{" + stopReason + " after " + ticks + " ticks, spoken=" + spoken + "}";
+	}
+}
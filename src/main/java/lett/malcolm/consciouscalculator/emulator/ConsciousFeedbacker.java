@@ -18,6 +18,7 @@
 package lett.malcolm.consciouscalculator.emulator;
 
 
+import java.util.Objects;
 import java.util.Queue;
 
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
@@ -27,6 +28,10 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
  */
 public class ConsciousFeedbacker {
 	private WorkingMemory workingMemory;
+	
+	// state
+	private String lastTopGuid = null;
+	private boolean changed = true;
 
 	/**
 	 * @param workingMemory
@@ -48,6 +53,7 @@ public class ConsciousFeedbacker {
 	 * Writes to the result stream every 'tick', regardless of the level of activity.
 	 * 
 	 * @param consciousFeedbackStream stream to write to
+	 * @throws IllegalStateException if the stream is full
 	 */
 	public void writeTo(Queue<Object> consciousFeedbackStream) {
 		Event top = workingMemory.top();
@@ -62,7 +68,30 @@ public class ConsciousFeedbacker {
 			summary.setTop(top.clone());
 		}
 		
-		consciousFeedbackStream.offer(summary);
+		// (drained every tick, so only full if something's badly wrong)
+		consciousFeedbackStream.add(summary);
+		
+		String topGuid = (top == null) ? null : top.guid();
+		changed = !Objects.equals(lastTopGuid, topGuid);
+		lastTopGuid = topGuid;
+	}
+	
+	/**
+	 * Whether the last summary written differs from the one before it.
+	 * Only the identity of the top event is compared, as its content can't change without
+	 * working memory also changing.
+	 * @return true if changed, or if nothing yet written
+	 */
+	public boolean isChanged() {
+		return changed;
+	}
+	
+	/**
+	 * Forgets what was last written.
+	 */
+	public void reset() {
+		lastTopGuid = null;
+		changed = true;
 	}
 	
 	/**
@@ -73,6 +102,17 @@ public class ConsciousFeedbacker {
 		
 		ConsciousState() {
 		}
+		
+		/**
+		 * Recreates a previously captured state.
+		 * @param top top event, or null
+		 * @return state
+		 */
+		public static ConsciousState of(Event top) {
+			ConsciousState state = new ConsciousState();
+			state.setTop(top);
+			return state;
+		}
 
 		/**
 		 * Null if nothing going on
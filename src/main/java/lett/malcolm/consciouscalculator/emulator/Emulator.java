@@ -17,28 +17,54 @@
  */
 package lett.malcolm.consciouscalculator.emulator;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import lett.malcolm.consciouscalculator.emulator.ConsciousFeedbacker.ConsciousState;
+import lett.malcolm.consciouscalculator.emulator.events.Guids;
 import lett.malcolm.consciouscalculator.emulator.interceptors.ConsciousFeedbackToSTMInterceptor;
 import lett.malcolm.consciouscalculator.emulator.interceptors.RequestCommandInterceptor;
 import lett.malcolm.consciouscalculator.emulator.interceptors.StuckThoughtInterceptor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.ActionAwareProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.IdGenerator;
+import lett.malcolm.consciouscalculator.emulator.interfaces.IncrementalProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.InputDesignator;
 import lett.malcolm.consciouscalculator.emulator.interfaces.InputInterceptor;
+import lett.malcolm.consciouscalculator.emulator.interfaces.InputView;
+import lett.malcolm.consciouscalculator.emulator.interfaces.InterestAwareProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.LTMAwareProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.STMAwareProcessor;
+import lett.malcolm.consciouscalculator.emulator.interfaces.TickListener;
+import lett.malcolm.consciouscalculator.emulator.journal.ReplayEngine;
+import lett.malcolm.consciouscalculator.emulator.journal.TickJournal;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.ManualClock;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.MpscArrayQueue;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.StopReason;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.TickClock;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.TickScheduler;
 import lett.malcolm.consciouscalculator.emulator.lowlevel.Trigger;
+import lett.malcolm.consciouscalculator.emulator.output.OutputChannel;
 import lett.malcolm.consciouscalculator.emulator.processors.EquationEvaluationProcessor;
 import lett.malcolm.consciouscalculator.emulator.processors.ExpressionAndEquationParseProcessor;
 import lett.malcolm.consciouscalculator.emulator.processors.ExpressionEvaluationProcessor;
@@ -46,6 +72,7 @@ import lett.malcolm.consciouscalculator.emulator.processors.ExpressionResponsePr
 import lett.malcolm.consciouscalculator.emulator.processors.FindMatchingConceptProcessor;
 import lett.malcolm.consciouscalculator.emulator.processors.LongTermMemorySearchProcessor;
 import lett.malcolm.consciouscalculator.emulator.processors.SpeakActionProcessor;
+import lett.malcolm.consciouscalculator.emulator.wm.LinearStrengthDecay;
 import lett.malcolm.consciouscalculator.utils.Events;
 
 /**
@@ -53,26 +80,32 @@ import lett.malcolm.consciouscalculator.utils.Events;
  * Holds instantiated objects, and manages the control loop via a trigger queue.
  * 
  * The emulator itself, and everything it uses, is single-threaded. To keep things simple.
- * Where the hosting application uses threads, it needs to serialise all access to the emulated components.
+ * The emulator serialises access to its components itself, so the hosting application can call it from any thread.
  * 
  * The emulator has only one external input: text based messages can be supplied to it.
  * It also has only one external output: it generates text based messages that can be printed to the console, for example.
  * 
- * TODO make the Emulator run in its own thread, and carefully synchronize access on the public methods.
+ * Commands can be sent synchronously, running the control loop on the calling thread,
+ * or submitted to run asynchronously on an executor. Either way, only one command runs at a time.
  * 
  * @author Malcolm Lett
  */
 public class Emulator {
 	public static final int DEFAULT_WORKING_MEMORY_MAX_SIZE = 100;
+	public static final int DEFAULT_WORKING_MEMORY_MAX_TOTAL_SIZE = 5_000;
 	public static final int DEFAULT_SHORT_TERM_MEMORY_MAX_SIZE = 1000;
 	public static final int DEFAULT_LONG_TERM_MEMORY_MAX_SIZE = 1_000_000;
+	public static final int DEFAULT_OUTPUT_CAPACITY = 256;
+	public static final int DEFAULT_STREAM_CAPACITY = 1024;
 	
-	// number of ticks with no event updates before stopping
+	// number of ticks with no event updates before stopping, unless quiescent sooner
+	// (default for EmulatorConfig)
 	public static final int STAGNANT_TRIGGER_TOLERANCE = 5;
 	
 	private static final Logger LOG = LoggerFactory.getLogger(Emulator.class);
 
-	private Clock clock;
+	private TickClock clock;
+	private final EmulatorConfig config;
 	private AttentionAttenuator attentionAttenuator;
 	private WorkingMemory workingMemory;
 	private ShortTermMemory shortTermMemory;
@@ -83,20 +116,61 @@ public class Emulator {
 	// interceptors and processors
 	private List<InputInterceptor> inputInterceptors;
 	private List<Processor> processors;
+	private ForkJoinPool processorPool;
+	private TickScheduler tickScheduler = new TickScheduler();
+	private TickListener tickListener;
+	private IdGenerator idGenerator;
+	private TickJournal journal;
+	
+	// asynchronous submission
+	private Executor executor = ForkJoinPool.commonPool();
+	private CompletableFuture<?> lastSubmission = CompletableFuture.completedFuture(null);
 	
 	// streams
-	private Queue<Object> commandStream = new LinkedList<>();
-	private Queue<Object> consciousFeedbackStream = new LinkedList<>();
-	private Queue<String> outputStream = new LinkedList<>();
+	// (any thread may write, only the control loop reads)
+	private Queue<Object> commandStream = new MpscArrayQueue<>(DEFAULT_STREAM_CAPACITY);
+	private Queue<Object> consciousFeedbackStream = new MpscArrayQueue<>(DEFAULT_STREAM_CAPACITY);
+	private Queue<String> outputStream = new MpscArrayQueue<>(DEFAULT_STREAM_CAPACITY);
+	private OutputChannel output = new OutputChannel(DEFAULT_OUTPUT_CAPACITY);
+	
+	// spoken so far in the current run, drained from the output stream each tick
+	private final List<String> spokenInRun = new ArrayList<>();
+	
+	// inputs drained from the streams for the current tick
+	private InputBatch<Object> commandInputs = new InputBatch<>();
+	private InputBatch<Object> consciousFeedbackInputs = new InputBatch<>();
 	
 	// low-level
-	private Queue<Trigger> triggerQueue = new LinkedList<>();
+	private Queue<Trigger> triggerQueue = new MpscArrayQueue<>(DEFAULT_STREAM_CAPACITY);
+	private int triggersSinceTick = 0;
 	
 	public Emulator() {
-		this.clock = Clock.systemDefaultZone();
-		this.workingMemory = new WorkingMemory(DEFAULT_WORKING_MEMORY_MAX_SIZE);
+		this(Clock.systemDefaultZone());
+	}
+	
+	/**
+	 * Events are timestamped by a {@link TickClock} over the given clock,
+	 * so it is only read once per tick.
+	 * @param wallClock clock used for all events, eg: a {@link ManualClock} for replays
+	 */
+	public Emulator(Clock wallClock) {
+		this(wallClock, EmulatorConfig.DEFAULT);
+	}
+	
+	/**
+	 * @param wallClock clock used for all events, eg: a {@link ManualClock} for replays
+	 * @param config tuning constants
+	 */
+	public Emulator(Clock wallClock, EmulatorConfig config) {
+		this.clock = TickClock.of(wallClock);
+		this.config = config;
+		this.workingMemory = new WorkingMemory(config.workingMemoryMaxSize(),
+				new LinearStrengthDecay(config.strengthDecayPerTick()));
 		this.shortTermMemory = new ShortTermMemory(DEFAULT_SHORT_TERM_MEMORY_MAX_SIZE);
+		this.workingMemory.setMaxTotalSize(config.workingMemoryMaxTotalSize());
+		this.workingMemory.setSpillTo(shortTermMemory);
 		this.longTermMemory = new LongTermMemory(clock, DEFAULT_LONG_TERM_MEMORY_MAX_SIZE);
+		this.longTermMemory.setMaxSearchResultCount(config.maxSearchResultCount());
 		this.attentionAttenuator = new AttentionAttenuator(commandStream,
 				consciousFeedbackStream, workingMemory);
 		this.consciousFeedbacker = new ConsciousFeedbacker(workingMemory);
@@ -107,8 +181,9 @@ public class Emulator {
 		this.processors = new ArrayList<>();
 		
 		inputInterceptors.add(consciousFeedbackToSTMInterceptor);
-		inputInterceptors.add(new RequestCommandInterceptor(clock));
-		inputInterceptors.add(new StuckThoughtInterceptor(clock));
+		inputInterceptors.add(new RequestCommandInterceptor(clock, config.requestStrength()));
+		inputInterceptors.add(new StuckThoughtInterceptor(clock, config.stuckThresholdTickCount(),
+				config.stuckThoughtStrength()));
 		processors.add(new ExpressionEvaluationProcessor(clock));
 		processors.add(new EquationEvaluationProcessor(clock));
 		processors.add(new ExpressionAndEquationParseProcessor(clock));
@@ -127,39 +202,356 @@ public class Emulator {
 			if (processor instanceof LTMAwareProcessor) {
 				((LTMAwareProcessor) processor).setLTM(longTermMemory);
 			}
+			if (processor instanceof InterestAwareProcessor) {
+				workingMemory.subscribe(((InterestAwareProcessor) processor).interest());
+			}
 		}
 	}
 
 	/**
-	 * Send a signal on the 'command' input.
+	 * Restores the emulator to a clean state, as if newly constructed, but reusing
+	 * the existing memories, interceptors, and processors.
+	 * Configuration, such as the processor pool, is retained.
+	 */
+	public synchronized void reset() {
+		commandStream.clear();
+		consciousFeedbackStream.clear();
+		outputStream.clear();
+		spokenInRun.clear();
+		triggerQueue.clear();
+		triggersSinceTick = 0;
+		commandInputs.clear();
+		consciousFeedbackInputs.clear();
+		
+		workingMemory.clear();
+		shortTermMemory.clear();
+		longTermMemory.reset();
+		consciousFeedbacker.reset();
+		for (InputInterceptor interceptor: inputInterceptors) {
+			interceptor.reset();
+		}
+		output.closeAll();
+	}
+	
+	/**
+	 * Enables running processors in parallel, on the given pool.
+	 * 
+	 * Note that any logging from processors then happens on the pool's threads.
+	 * @param pool pool to run processors on, or null to run them sequentially on the calling thread (default)
+	 */
+	public void setProcessorPool(ForkJoinPool pool) {
+		this.processorPool = pool;
+	}
+	
+	/**
+	 * Sets the limits on how long the control loop may run for each command.
+	 * Schedulers may be shared between emulators, to aggregate their counters.
+	 * @param tickScheduler scheduler, defaults to one with only the default tick budget
+	 */
+	public void setTickScheduler(TickScheduler tickScheduler) {
+		this.tickScheduler = tickScheduler;
+	}
+	
+	public TickScheduler getTickScheduler() {
+		return tickScheduler;
+	}
+	
+	/**
+	 * Sets how guids of new events and percepts are generated while this emulator runs.
+	 * @param idGenerator generator, or null to use that of the calling thread (default)
+	 * @see Guids
+	 */
+	public void setIdGenerator(IdGenerator idGenerator) {
+		this.idGenerator = idGenerator;
+	}
+	
+	public IdGenerator getIdGenerator() {
+		return idGenerator;
+	}
+	
+	/**
+	 * @param tickListener listener notified after every tick, or null for none
+	 */
+	public void setTickListener(TickListener tickListener) {
+		this.tickListener = tickListener;
+	}
+	
+	/**
+	 * Records the inputs of every tick from now on.
+	 * The caller remains responsible for closing the journal.
+	 * @param journal journal to append to, or null to stop recording
+	 * @see ReplayEngine
+	 */
+	public synchronized void setJournal(TickJournal journal) {
+		this.journal = journal;
+	}
+	
+	/**
+	 * Sets the default executor that submitted commands run on.
+	 * @param executor executor, defaults to the common fork-join pool
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+	
+	/**
+	 * Send a signal on the 'command' input, and runs until the emulator settles,
+	 * or the tick scheduler stops it.
+	 * Runs on the calling thread.
+	 * @param text
+	 * @return everything spoken in response, in order
+	 */
+	public List<String> sendCommand(String text) {
+		return execute(text).spoken();
+	}
+	
+	/**
+	 * Send a signal on the 'command' input, and runs until the emulator settles,
+	 * or the tick scheduler stops it.
+	 * Runs on the calling thread.
 	 * @param text
+	 * @return everything spoken in response, and whether the emulator settled
 	 */
-	public void sendCommand(String text) {
-		commandStream.offer(text);
-		trigger(true);
+	public synchronized CommandResult execute(String text) {
+		offerCommand(text);
+		return execute();
 	}
 	
 	/**
+	 * Runs until the emulator settles, or the tick scheduler stops it,
+	 * picking up any commands already offered.
+	 * Runs on the calling thread.
+	 * @return everything spoken in response, and whether the emulator settled
+	 */
+	public synchronized CommandResult execute() {
+		TickScheduler.Run run = tickScheduler.start();
+		spokenInRun.clear();
+		trigger();
+		// uses the caller's generator, unless the emulator has its own
+		if (idGenerator == null) {
+			controlLoop(run);
+		}
+		else {
+			Guids.runWith(idGenerator, () -> controlLoop(run));
+		}
+		
+		drainOutput();
+		List<String> spoken = new ArrayList<>(spokenInRun);
+		spokenInRun.clear();
+		for (String said: spoken) {
+			output.publish(said);
+		}
+		return new CommandResult(spoken, run.stopReason(), run.ticks());
+	}
+	
+	/**
+	 * Queues a signal on the 'command' input, without running the emulator.
+	 * It is picked up on the next tick, whether by a running control loop, or
+	 * the next {@link #sendCommand(String)}.
 	 * 
-	 * @return
+	 * Lock-free, and safe to call from any thread.
+	 * @param text
+	 * @throws IllegalStateException if the command stream is full
 	 */
-	// TODO decide on a good output queue that can support multiple consumers
-	public Queue<String> getOutput() {
-		return null;
+	public void offerCommand(String text) {
+		commandStream.add(text);
 	}
 	
-	private void controlLoop() {
+	/**
+	 * Send a signal on the 'command' input, running asynchronously on the default executor.
+	 * @param text
+	 * @return future result of {@link #execute(String)}
+	 */
+	public CompletableFuture<CommandResult> submit(String text) {
+		return submit(text, executor);
+	}
+	
+	/**
+	 * Send a signal on the 'command' input, running asynchronously on the given executor.
+	 * Submitted commands are run in the order submitted, each after the previous has finished,
+	 * regardless of whether the previous failed.
+	 * @param text
+	 * @param executor
+	 * @return future result of {@link #execute(String)}
+	 */
+	public synchronized CompletableFuture<CommandResult> submit(String text, Executor executor) {
+		CompletableFuture<CommandResult> result = lastSubmission
+				.handle((ignored, error) -> null)
+				.thenApplyAsync(ignored -> execute(text), executor);
+		lastSubmission = result;
+		return result;
+	}
+	
+	/**
+	 * Captures everything needed to later restore this emulator to its current state,
+	 * as at the end of the last command.
+	 * Configuration isn't included.
+	 * @return state, sharing nothing mutable with this emulator
+	 */
+	public synchronized EmulatorState captureState() {
+		List<Event> pendingFeedback = new ArrayList<>();
+		for (Object item: consciousFeedbackStream) {
+			Event top = ((ConsciousState) item).getTop();
+			pendingFeedback.add(top == null ? null : top.clone());
+		}
+		List<String> pendingCommands = new ArrayList<>();
+		for (Object item: commandStream) {
+			pendingCommands.add((String) item);
+		}
+		Map<String, Object> interceptorStates = new LinkedHashMap<>();
+		for (InputInterceptor interceptor: inputInterceptors) {
+			Object state = interceptor.captureState();
+			if (state != null) {
+				interceptorStates.put(interceptor.getClass().getName(), state);
+			}
+		}
+		
+		return new EmulatorState(
+				cloneAll(workingMemory.allInStoredOrder()),
+				cloneAll(shortTermMemory.all()),
+				cloneAll(longTermMemory.learned()),
+				pendingFeedback,
+				pendingCommands,
+				interceptorStates);
+	}
+	
+	/**
+	 * Resets the emulator, and then restores it to a previously captured state.
+	 * Configuration is retained.
+	 * @param state state from {@link #captureState()}, which the emulator takes ownership of
+	 */
+	public synchronized void restoreState(EmulatorState state) {
+		reset();
+		
+		// (events don't carry their clock when serialized)
+		for (Event event: state.workingMemory()) {
+			event.setClock(clock);
+			workingMemory.store(event);
+		}
+		for (Event event: state.shortTermMemory()) {
+			event.setClock(clock);
+			shortTermMemory.store(event);
+		}
+		for (Event event: state.learned()) {
+			event.setClock(clock);
+			longTermMemory.store(event);
+		}
+		for (Event top: state.pendingFeedback()) {
+			if (top != null) {
+				top.setClock(clock);
+			}
+			consciousFeedbackStream.add(ConsciousState.of(top));
+		}
+		for (String command: state.pendingCommands()) {
+			commandStream.add(command);
+		}
+		for (InputInterceptor interceptor: inputInterceptors) {
+			Object interceptorState = state.interceptorStates().get(interceptor.getClass().getName());
+			if (interceptorState != null) {
+				interceptor.restoreState(interceptorState);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the complete state of the emulator, as per {@link #captureState()},
+	 * in a compact binary form.
+	 * Flushes, but doesn't close, the stream.
+	 * @param out
+	 * @throws IOException
+	 * @see EmulatorStateCodec
+	 */
+	public void checkpoint(OutputStream out) throws IOException {
+		EmulatorStateCodec.write(captureState(), out);
+	}
+	
+	/**
+	 * Resets the emulator, and then restores it from a checkpoint.
+	 * Leaves the emulator unchanged if the checkpoint can't be read.
+	 * Doesn't close the stream.
+	 * @param in stream positioned at output from {@link #checkpoint(OutputStream)}
+	 * @throws IOException if the checkpoint is malformed
+	 */
+	public void restore(InputStream in) throws IOException {
+		restoreState(EmulatorStateCodec.read(in, clock));
+	}
+	
+	private static List<Event> cloneAll(Collection<Event> events) {
+		List<Event> result = new ArrayList<>(events.size());
+		for (Event event: events) {
+			result.add(event.clone());
+		}
+		return result;
+	}
+	
+	public EmulatorConfig getConfig() {
+		return config;
+	}
+	
+	/**
+	 * Cheap enough to call after every tick, eg: from a {@link TickListener}.
+	 * @return number of events in working memory
+	 */
+	public int workingMemorySize() {
+		return workingMemory.size();
+	}
+	
+	/**
+	 * Copies the current state of memory.
+	 * @return snapshot
+	 */
+	public synchronized EmulatorSnapshot snapshot() {
+		return new EmulatorSnapshot(clock.source().instant(), workingMemory.all(), shortTermMemory.all());
+	}
+	
+	/**
+	 * Everything spoken, broadcast to any number of consumers.
+	 * Consumers only see what is spoken after they subscribe, and are closed on {@link #reset()}.
+	 * @return output channel
+	 */
+	public OutputChannel getOutput() {
+		return output;
+	}
+	
+	/**
+	 * Moves anything spoken out of the bounded output stream, every tick, so that it never fills up.
+	 */
+	private void drainOutput() {
+		String said;
+		while ((said = outputStream.poll()) != null) {
+			spokenInRun.add(said);
+		}
+	}
+	
+	private void controlLoop(TickScheduler.Run run) {
 		int ticksWithoutUpdates = 0;
+		StopReason stopReason = StopReason.SETTLED;
 		while (triggerQueue.poll() != null) {
+			StopReason limit = run.beforeTick();
+			if (limit != null) {
+				stopReason = limit;
+				triggerQueue.clear();
+				LOG.info("Stopped early after {} ticks and {} ms: {}", run.ticks(), run.elapsed(TimeUnit.MILLISECONDS), limit);
+				break;
+			}
+			clock.advance();
+			
 			List<Event> interceptedEvents = new ArrayList<>();
-			List<ProcessedOutput> processedOutputs = new ArrayList<>();
 			boolean updated = false;
 			
+			// take this tick's inputs
+			commandInputs.drainFrom(commandStream);
+			consciousFeedbackInputs.drainFrom(consciousFeedbackStream);
+			int triggers = triggersSinceTick;
+			triggersSinceTick = 0;
+			if (journal != null) {
+				journalTick(triggers);
+			}
+			
 			// input intercepting
+			// (all interceptors of an input share the same read-only view)
 			for (InputInterceptor interceptor: inputInterceptors) {
-				// clone incoming stream
-				Queue<Object> stream = new LinkedList<Object>(getInputStream(interceptor.inputDesignator()));
-				Event event = interceptor.intercept(stream);
+				Event event = interceptor.intercept(getInputs(interceptor.inputDesignator()));
 				if (event != null) {
 					interceptedEvents.add(event);
 				}
@@ -167,24 +559,20 @@ public class Emulator {
 			updated |= !interceptedEvents.isEmpty();
 			
 			// processing
-			for (Processor processor: processors) {
-				interceptedEvents = Collections.unmodifiableList(interceptedEvents);
-				List<Event> eventSet = processor.process(interceptedEvents, workingMemory);
-				if (eventSet != null && !eventSet.isEmpty()) {
-					processedOutputs.add(new ProcessedOutput(processor, eventSet));
-				}
-			}
+			interceptedEvents = Collections.unmodifiableList(interceptedEvents);
+			List<ProcessedOutput> processedOutputs = process(interceptedEvents);
 			updated |= !processedOutputs.isEmpty();
+			drainOutput();
 			LOG.trace("Outputs: " + processedOutputs);
 			
 			// attention
 			updated |= attentionAttenuator.act(interceptedEvents,
 					processedOutputs.stream().map(po -> po.output).collect(Collectors.toList()));
 
-			// tick cleanup: consume input queues
+			// tick cleanup: consume inputs
 			// (has to go here, because we'll next push data onto the consciousFeedbackStream and want that to be feed back into the next loop)
-			commandStream.clear();
-			consciousFeedbackStream.clear();
+			commandInputs.clear();
+			consciousFeedbackInputs.clear();
 			
 			// run conscious feedback loop
 			consciousFeedbacker.writeTo(consciousFeedbackStream);
@@ -192,6 +580,10 @@ public class Emulator {
 			// degrade strengths
 			workingMemory.degradeStrengths();
 			
+			if (tickListener != null) {
+				tickListener.afterTick(run.ticks() - 1);
+			}
+			
 			// handle loop
 			if (updated) {
 				ticksWithoutUpdates = 0;
@@ -199,27 +591,159 @@ public class Emulator {
 			else {
 				ticksWithoutUpdates++;
 			}
-			if (updated || ticksWithoutUpdates < STAGNANT_TRIGGER_TOLERANCE) {
+			if (!updated && isQuiescent()) {
+				stopReason = StopReason.QUIESCENT;
+			}
+			else if (updated || ticksWithoutUpdates < config.stagnantTriggerTolerance()) {
 				trigger();
 			}
 		}
 		
+		run.finish(stopReason);
+		if (journal != null) {
+			try {
+				journal.recordRunEnd(stopReason, run.ticks());
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to write tick journal", e);
+			}
+		}
+		
 		// finishing up, log current state of WM
-		LOG.debug("Working Memory state at end:");
-		if (workingMemory.all().isEmpty()) {
-			LOG.debug("  <empty>");
+		// (skipped entirely when not logged, as copying WM isn't free)
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Working Memory state at end:");
+			if (workingMemory.all().isEmpty()) {
+				LOG.debug("  <empty>");
+			}
+			else {
+				for (Event event: workingMemory.all()) {
+					LOG.debug("  {}", event);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Runs all processors against working memory, either sequentially or in parallel.
+	 * Either way, outputs are collected in processor order, so the result is the same.
+	 */
+	private List<ProcessedOutput> process(List<Event> interceptedEvents) {
+		// incremental processors: skip if nothing has changed for them
+		List<Processor> runnable = new ArrayList<>();
+		for (Processor processor: processors) {
+			if (!(processor instanceof IncrementalProcessor) ||
+					!workingMemory.pending((IncrementalProcessor) processor).isEmpty()) {
+				runnable.add(processor);
+			}
+		}
+		
+		List<List<Event>> eventSets = new ArrayList<>();
+		if (processorPool == null) {
+			for (Processor processor: runnable) {
+				eventSets.add(processor.process(interceptedEvents, workingMemory));
+			}
 		}
 		else {
-			for (Event event: workingMemory.all()) {
-				LOG.debug("  {}", event);
+			// processors only read from working memory, so can run concurrently while it's held read-only
+			workingMemory.setReadOnly(true);
+			try {
+				// (pool threads use the same guid generator as the control loop)
+				IdGenerator ids = Guids.current();
+				List<ForkJoinTask<List<Event>>> tasks = new ArrayList<>();
+				for (Processor processor: runnable) {
+					tasks.add(processorPool.submit(() ->
+							Guids.callWith(ids, () -> processor.process(interceptedEvents, workingMemory))));
+				}
+				
+				// wait for all, even if some fail, so that nothing is still reading once writable again
+				RuntimeException failure = null;
+				for (ForkJoinTask<List<Event>> task: tasks) {
+					try {
+						eventSets.add(task.join());
+					} catch (RuntimeException e) {
+						if (failure == null) {
+							failure = e;
+						}
+						else {
+							failure.addSuppressed(e);
+						}
+					}
+				}
+				if (failure != null) {
+					throw failure;
+				}
+			} finally {
+				workingMemory.setReadOnly(false);
 			}
 		}
+		
+		List<ProcessedOutput> processedOutputs = new ArrayList<>();
+		for (int i = 0; i < runnable.size(); i++) {
+			Processor processor = runnable.get(i);
+			List<Event> eventSet = eventSets.get(i);
+			if (eventSet != null && !eventSet.isEmpty()) {
+				processedOutputs.add(new ProcessedOutput(processor, eventSet));
+			}
+			else if (processor instanceof IncrementalProcessor) {
+				// declined everything pending
+				workingMemory.clearPending((IncrementalProcessor) processor);
+			}
+		}
+		return processedOutputs;
 	}
 	
-	private Queue<Object> getInputStream(InputDesignator designator) {
+	/**
+	 * Whether another tick can't change anything, given that the tick just run changed nothing:
+	 * - no inputs are waiting
+	 * - conscious feedback is unchanged, and no interceptor would act on it again
+	 * - no incremental processor has anything pending
+	 * 
+	 * Other processors only see working memory and intercepted events, and with neither changing,
+	 * they'd produce nothing again.
+	 */
+	private boolean isQuiescent() {
+		if (!commandStream.isEmpty() || consciousFeedbacker.isChanged()) {
+			return false;
+		}
+		for (InputInterceptor interceptor: inputInterceptors) {
+			if (!interceptor.isQuiescent()) {
+				return false;
+			}
+		}
+		for (Processor processor: processors) {
+			if (processor instanceof IncrementalProcessor &&
+					!workingMemory.pending((IncrementalProcessor) processor).isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Records this tick's inputs, and the time it started.
+	 */
+	private void journalTick(int triggers) {
+		List<String> commands = new ArrayList<>(commandInputs.size());
+		for (int i = 0; i < commandInputs.size(); i++) {
+			commands.add((String) commandInputs.get(i));
+		}
+		List<String> feedback = new ArrayList<>(consciousFeedbackInputs.size());
+		for (int i = 0; i < consciousFeedbackInputs.size(); i++) {
+			Event top = ((ConsciousState) consciousFeedbackInputs.get(i)).getTop();
+			feedback.add(top == null ? null : top.guid());
+		}
+		
+		try {
+			journal.recordTick(clock.instant(), commands, feedback, triggers);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to write tick journal", e);
+		}
+	}
+	
+	private InputView<Object> getInputs(InputDesignator designator) {
 		switch (designator) {
-		case COMMAND: return commandStream;
-		case CONSCIOUS_FEEDBACK: return consciousFeedbackStream;
+		case COMMAND: return commandInputs;
+		case CONSCIOUS_FEEDBACK: return consciousFeedbackInputs;
 		default:
 			throw new UnsupportedOperationException(InputDesignator.class.getSimpleName()+" "+designator+" not recognised");
 		}
@@ -227,13 +751,7 @@ public class Emulator {
 	
 	private void trigger() {
 		triggerQueue.offer(new Trigger());
-	}
-
-	private void trigger(boolean runIfNotRunning) {
-		trigger();
-		if (runIfNotRunning) {
-			controlLoop();
-		}
+		triggersSinceTick++;
 	}
 	
 	/**
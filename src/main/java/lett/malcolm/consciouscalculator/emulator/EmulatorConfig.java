@@ -0,0 +1,185 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator;
+
+import lett.malcolm.consciouscalculator.emulator.interceptors.RequestCommandInterceptor;
+import lett.malcolm.consciouscalculator.emulator.interceptors.StuckThoughtInterceptor;
+import lett.malcolm.consciouscalculator.emulator.wm.LinearStrengthDecay;
+
+/**
+ * Tuning constants that affect the behaviour, and cost, of an {@link Emulator}.
+ * 
+ * Immutable. Start from {@link #DEFAULT} and derive variations, eg:
+ * <pre>
+ * EmulatorConfig config = EmulatorConfig.DEFAULT
+ *     .withStagnantTriggerTolerance(3)
+ *     .withStrengthDecayPerTick(0.02);
+ * </pre>
+ * 
+ * @author Malcolm Lett
+ */
+public class EmulatorConfig {
+	/**
+	 * Column names, matching {@link #toCsvRow()}.
+	 */
+	public static final String CSV_HEADER = "wm_max_size,wm_max_total_size,stagnant_trigger_tolerance,"
+			+ "strength_decay_per_tick,stuck_threshold_tick_count,request_strength,stuck_thought_strength,"
+			+ "max_search_result_count";
+	
+	public static final EmulatorConfig DEFAULT = new EmulatorConfig(
+			Emulator.DEFAULT_WORKING_MEMORY_MAX_SIZE,
+			Emulator.DEFAULT_WORKING_MEMORY_MAX_TOTAL_SIZE,
+			Emulator.STAGNANT_TRIGGER_TOLERANCE,
+			LinearStrengthDecay.DEFAULT_AMOUNT_PER_TICK,
+			StuckThoughtInterceptor.DEFAULT_THRESHOLD_TICK_COUNT,
+			RequestCommandInterceptor.DEFAULT_STRENGTH,
+			StuckThoughtInterceptor.DEFAULT_STRENGTH,
+			LongTermMemory.DEFAULT_MAX_SEARCH_RESULT_COUNT);
+	
+	private final int workingMemoryMaxSize;
+	private final int workingMemoryMaxTotalSize;
+	private final int stagnantTriggerTolerance;
+	private final double strengthDecayPerTick;
+	private final int stuckThresholdTickCount;
+	private final double requestStrength;
+	private final double stuckThoughtStrength;
+	private final int maxSearchResultCount;
+	
+	private EmulatorConfig(int workingMemoryMaxSize, int workingMemoryMaxTotalSize, int stagnantTriggerTolerance,
+			double strengthDecayPerTick, int stuckThresholdTickCount, double requestStrength,
+			double stuckThoughtStrength, int maxSearchResultCount) {
+		this.workingMemoryMaxSize = workingMemoryMaxSize;
+		this.workingMemoryMaxTotalSize = workingMemoryMaxTotalSize;
+		this.stagnantTriggerTolerance = stagnantTriggerTolerance;
+		this.strengthDecayPerTick = strengthDecayPerTick;
+		this.stuckThresholdTickCount = stuckThresholdTickCount;
+		this.requestStrength = requestStrength;
+		this.stuckThoughtStrength = stuckThoughtStrength;
+		this.maxSearchResultCount = maxSearchResultCount;
+	}
+	
+	/**
+	 * @return maximum number of events in working memory
+	 */
+	public int workingMemoryMaxSize() {
+		return workingMemoryMaxSize;
+	}
+	
+	/**
+	 * @return maximum total {@link lett.malcolm.consciouscalculator.emulator.interfaces.Event#size()} of working memory
+	 */
+	public int workingMemoryMaxTotalSize() {
+		return workingMemoryMaxTotalSize;
+	}
+	
+	/**
+	 * @return number of ticks with no event updates before stopping, unless quiescent sooner
+	 */
+	public int stagnantTriggerTolerance() {
+		return stagnantTriggerTolerance;
+	}
+	
+	/**
+	 * @return amount working memory strengths degrade by each tick
+	 */
+	public double strengthDecayPerTick() {
+		return strengthDecayPerTick;
+	}
+	
+	/**
+	 * @return number of ticks with the same conscious focus, including the current, before thought is considered stuck
+	 */
+	public int stuckThresholdTickCount() {
+		return stuckThresholdTickCount;
+	}
+	
+	/**
+	 * @return strength of events for incoming commands
+	 */
+	public double requestStrength() {
+		return requestStrength;
+	}
+	
+	/**
+	 * @return strength of events raised when thought is stuck
+	 */
+	public double stuckThoughtStrength() {
+		return stuckThoughtStrength;
+	}
+	
+	/**
+	 * @return maximum number of results from each long-term memory search
+	 */
+	public int maxSearchResultCount() {
+		return maxSearchResultCount;
+	}
+	
+	public EmulatorConfig withWorkingMemoryMaxSize(int workingMemoryMaxSize) {
+		return new EmulatorConfig(workingMemoryMaxSize, workingMemoryMaxTotalSize, stagnantTriggerTolerance,
+				strengthDecayPerTick, stuckThresholdTickCount, requestStrength, stuckThoughtStrength, maxSearchResultCount);
+	}
+	
+	public EmulatorConfig withWorkingMemoryMaxTotalSize(int workingMemoryMaxTotalSize) {
+		return new EmulatorConfig(workingMemoryMaxSize, workingMemoryMaxTotalSize, stagnantTriggerTolerance,
+				strengthDecayPerTick, stuckThresholdTickCount, requestStrength, stuckThoughtStrength, maxSearchResultCount);
+	}
+	
+	public EmulatorConfig withStagnantTriggerTolerance(int stagnantTriggerTolerance) {
+		return new EmulatorConfig(workingMemoryMaxSize, workingMemoryMaxTotalSize, stagnantTriggerTolerance,
+				strengthDecayPerTick, stuckThresholdTickCount, requestStrength, stuckThoughtStrength, maxSearchResultCount);
+	}
+	
+	public EmulatorConfig withStrengthDecayPerTick(double strengthDecayPerTick) {
+		return new EmulatorConfig(workingMemoryMaxSize, workingMemoryMaxTotalSize, stagnantTriggerTolerance,
+				strengthDecayPerTick, stuckThresholdTickCount, requestStrength, stuckThoughtStrength, maxSearchResultCount);
+	}
+	
+	public EmulatorConfig withStuckThresholdTickCount(int stuckThresholdTickCount) {
+		return new EmulatorConfig(workingMemoryMaxSize, workingMemoryMaxTotalSize, stagnantTriggerTolerance,
+				strengthDecayPerTick, stuckThresholdTickCount, requestStrength, stuckThoughtStrength, maxSearchResultCount);
+	}
+	
+	public EmulatorConfig withRequestStrength(double requestStrength) {
+		return new EmulatorConfig(workingMemoryMaxSize, workingMemoryMaxTotalSize, stagnantTriggerTolerance,
+				strengthDecayPerTick, stuckThresholdTickCount, requestStrength, stuckThoughtStrength, maxSearchResultCount);
+	}
+	
+	public EmulatorConfig withStuckThoughtStrength(double stuckThoughtStrength) {
+		return new EmulatorConfig(workingMemoryMaxSize, workingMemoryMaxTotalSize, stagnantTriggerTolerance,
+				strengthDecayPerTick, stuckThresholdTickCount, requestStrength, stuckThoughtStrength, maxSearchResultCount);
+	}
+	
+	public EmulatorConfig withMaxSearchResultCount(int maxSearchResultCount) {
+		return new EmulatorConfig(workingMemoryMaxSize, workingMemoryMaxTotalSize, stagnantTriggerTolerance,
+				strengthDecayPerTick, stuckThresholdTickCount, requestStrength, stuckThoughtStrength, maxSearchResultCount);
+	}
+	
+	/**
+	 * @return values in the order of {@link #CSV_HEADER}
+	 */
+	public String toCsvRow() {
+		return workingMemoryMaxSize + "," + workingMemoryMaxTotalSize + "," + stagnantTriggerTolerance + "," +
+				strengthDecayPerTick + "," + stuckThresholdTickCount + "," + requestStrength + "," +
+				stuckThoughtStrength + "," + maxSearchResultCount;
+	}
+	
+	@Override
+	public String toString() {
+		return "EmulatorConfig{" + CSV_HEADER + "=" + toCsvRow() + "}";
+	}
+}
@@ -0,0 +1,338 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of emulators, so that each session doesn't have to construct
+ * and wire up a new emulator.
+ * 
+ * Emulators are created on demand, up to the maximum size, and are {@link Emulator#reset()}
+ * when released back to the pool.
+ * Most recently released emulators are borrowed first.
+ * 
+ * Emulators can be borrowed either by waiting for one, or asynchronously.
+ * Either way, borrowers wait in the same queue, and released emulators go to them in the order they asked.
+ * 
+ * Thread-safe.
+ * 
+ * @author Malcolm Lett
+ */
+public class EmulatorPool {
+	private static final Logger LOG = LoggerFactory.getLogger(EmulatorPool.class);
+	
+	// times out asynchronous borrows, shared by all pools
+	private static final ScheduledExecutorService TIMEOUTS = Executors.newSingleThreadScheduledExecutor(task -> {
+		Thread thread = new Thread(task, "emulator-pool-timeouts");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private final int maxSize;
+	private final Supplier<Emulator> factory;
+	private final BlockingDeque<Emulator> idle = new LinkedBlockingDeque<>();
+	private final AtomicInteger created = new AtomicInteger();
+	
+	// borrowers waiting for an emulator, oldest first
+	// (also guards moving between this and 'idle', so that neither is left waiting while the other has something)
+	private final Queue<Waiter> waiters = new ArrayDeque<>();
+	
+	// metrics
+	private final AtomicInteger borrowed = new AtomicInteger();
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong waitCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	
+	public EmulatorPool(int maxSize) {
+		this(maxSize, Emulator::new);
+	}
+	
+	public EmulatorPool(int maxSize, Supplier<Emulator> factory) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Pool size must be at least 1, got " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.factory = factory;
+	}
+	
+	/**
+	 * Borrows an emulator, creating one if none are idle and the pool isn't yet full,
+	 * or otherwise waiting for one to be released.
+	 * 
+	 * Callers MUST {@link #release(Emulator)} the emulator when done with it.
+	 * @param timeout how long to wait for an emulator to be released
+	 * @param unit
+	 * @return emulator in clean state, or null if timed out
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Emulator borrow(long timeout, TimeUnit unit) throws InterruptedException {
+		Waiter waiter = borrowOrWait();
+		try {
+			return waiter.future.get(timeout, unit);
+		} catch (TimeoutException e) {
+			if (expire(waiter)) {
+				return null;
+			}
+			// handed one just as timing out
+			return waiter.future.join();
+		} catch (InterruptedException e) {
+			if (!abandon(waiter)) {
+				// handed one just as interrupted, so pass it on
+				Emulator emulator = waiter.future.join();
+				borrowed.decrementAndGet();
+				borrowCount.decrementAndGet();
+				handOff(emulator);
+			}
+			throw e;
+		} catch (ExecutionException e) {
+			// (only asynchronous borrows are ever completed exceptionally)
+			throw new IllegalStateException("Unexpected failure borrowing emulator: " + e.getCause(), e.getCause());
+		}
+	}
+	
+	/**
+	 * Borrows an emulator without blocking, creating one if none are idle and the pool isn't yet full,
+	 * or otherwise as soon as one is released.
+	 * 
+	 * Callers MUST {@link #release(Emulator)} the emulator when done with it.
+	 * Cancelling the future gives up waiting.
+	 * @param timeout how long to wait for an emulator to be released
+	 * @param unit
+	 * @return future emulator in clean state, failing with {@link TimeoutException} if timed out
+	 */
+	public CompletableFuture<Emulator> borrowAsync(long timeout, TimeUnit unit) {
+		Waiter waiter = borrowOrWait();
+		if (!waiter.future.isDone()) {
+			TIMEOUTS.schedule(() -> expire(waiter), timeout, unit);
+		}
+		return waiter.future;
+	}
+	
+	/**
+	 * Takes an idle emulator, or creates one, or otherwise joins the queue of borrowers waiting.
+	 * @return waiter, already completed if an emulator was available
+	 */
+	private Waiter borrowOrWait() {
+		Waiter waiter = new Waiter();
+		Emulator emulator;
+		synchronized (waiters) {
+			emulator = idle.pollFirst();
+			if (emulator == null) {
+				emulator = tryCreate();
+			}
+			if (emulator == null) {
+				waiters.offer(waiter);
+			}
+		}
+		
+		if (emulator != null) {
+			borrowed.incrementAndGet();
+			borrowCount.incrementAndGet();
+			waiter.future.complete(emulator);
+		}
+		else {
+			waitCount.incrementAndGet();
+		}
+		return waiter;
+	}
+	
+	/**
+	 * Gives up waiting because of timeout, unless already handed an emulator.
+	 * @return true if timed out, false if handed an emulator
+	 */
+	private boolean expire(Waiter waiter) {
+		if (!abandon(waiter)) {
+			return false;
+		}
+		// (unless cancelled already)
+		if (!waiter.future.isDone()) {
+			timeoutCount.incrementAndGet();
+			recordWait(waiter);
+			waiter.future.completeExceptionally(new TimeoutException("All emulators are busy"));
+		}
+		return true;
+	}
+	
+	/**
+	 * Leaves the queue of borrowers waiting.
+	 * @return true if left, false if already handed an emulator (or about to be)
+	 */
+	private boolean abandon(Waiter waiter) {
+		synchronized (waiters) {
+			return waiters.remove(waiter);
+		}
+	}
+	
+	private Emulator tryCreate() {
+		if (created.incrementAndGet() > maxSize) {
+			created.decrementAndGet();
+			return null;
+		}
+		try {
+			return factory.get();
+		} catch (RuntimeException e) {
+			created.decrementAndGet();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Resets the emulator and returns it to the pool.
+	 * If it can't be reset, it is discarded, and a new one will be created in its place when next needed.
+	 * @param emulator emulator previously borrowed from this pool
+	 */
+	public void release(Emulator emulator) {
+		borrowed.decrementAndGet();
+		try {
+			emulator.reset();
+		} catch (RuntimeException e) {
+			LOG.warn("Discarding emulator that failed to reset: " + e, e);
+			created.decrementAndGet();
+			replaceForWaiter();
+			return;
+		}
+		handOff(emulator);
+	}
+	
+	/**
+	 * Gives the emulator to the oldest borrower still waiting, or otherwise makes it idle.
+	 */
+	private void handOff(Emulator emulator) {
+		while (true) {
+			Waiter waiter;
+			synchronized (waiters) {
+				waiter = waiters.poll();
+				if (waiter == null) {
+					idle.offerFirst(emulator);
+					return;
+				}
+			}
+			
+			// (outside the lock, as completing runs the borrower's callbacks)
+			borrowed.incrementAndGet();
+			if (waiter.future.complete(emulator)) {
+				borrowCount.incrementAndGet();
+				recordWait(waiter);
+				return;
+			}
+			// timed out or cancelled meanwhile
+			borrowed.decrementAndGet();
+		}
+	}
+	
+	/**
+	 * Creates a new emulator for any borrower still waiting, in place of one discarded.
+	 */
+	private void replaceForWaiter() {
+		Emulator emulator;
+		synchronized (waiters) {
+			if (waiters.isEmpty()) {
+				return;
+			}
+			try {
+				emulator = tryCreate();
+			} catch (RuntimeException e) {
+				LOG.warn("Unable to create replacement emulator: " + e, e);
+				return;
+			}
+		}
+		if (emulator != null) {
+			handOff(emulator);
+		}
+	}
+	
+	private void recordWait(Waiter waiter) {
+		long waited = System.nanoTime() - waiter.start;
+		totalWaitNanos.addAndGet(waited);
+		maxWaitNanos.accumulateAndGet(waited, Math::max);
+	}
+	
+	public int maxSize() {
+		return maxSize;
+	}
+	
+	/**
+	 * @return number of emulators currently created, whether idle or borrowed
+	 */
+	public int size() {
+		return created.get();
+	}
+	
+	public int idleCount() {
+		return idle.size();
+	}
+	
+	public int borrowedCount() {
+		return borrowed.get();
+	}
+	
+	/**
+	 * @return total number of successful borrows
+	 */
+	public long borrowCount() {
+		return borrowCount.get();
+	}
+	
+	/**
+	 * @return number of borrows that had to wait for an emulator to be released
+	 */
+	public long waitCount() {
+		return waitCount.get();
+	}
+	
+	/**
+	 * @return number of borrows that gave up waiting
+	 */
+	public long timeoutCount() {
+		return timeoutCount.get();
+	}
+	
+	public long totalWaitTime(TimeUnit unit) {
+		return unit.convert(totalWaitNanos.get(), TimeUnit.NANOSECONDS);
+	}
+	
+	public long maxWaitTime(TimeUnit unit) {
+		return unit.convert(maxWaitNanos.get(), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Borrower waiting for an emulator, whether blocked or asynchronous.
+	 */
+	private static class Waiter {
+		private final CompletableFuture<Emulator> future = new CompletableFuture<>();
+		private final long start = System.nanoTime();
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+
+/**
+ * Point-in-time copy of an emulator's memories, for observing a running emulator
+ * without holding onto its live state.
+ * 
+ * @author Malcolm Lett
+ */
+public class EmulatorSnapshot {
+	private final Instant takenAt;
+	private final List<Event> workingMemory;
+	private final List<Event> shortTermMemory;
+	
+	EmulatorSnapshot(Instant takenAt, Collection<Event> workingMemory, Collection<Event> shortTermMemory) {
+		this.takenAt = takenAt;
+		this.workingMemory = cloneAll(workingMemory);
+		this.shortTermMemory = cloneAll(shortTermMemory);
+	}
+	
+	public Instant takenAt() {
+		return takenAt;
+	}
+	
+	/**
+	 * @return copies of working memory events, in priority order
+	 */
+	public List<Event> workingMemory() {
+		return workingMemory;
+	}
+	
+	/**
+	 * @return copies of short-term memory events, in the order stored
+	 */
+	public List<Event> shortTermMemory() {
+		return shortTermMemory;
+	}
+	
+	private static List<Event> cloneAll(Collection<Event> events) {
+		List<Event> result = new ArrayList<>(events.size());
+		for (Event event: events) {
+			result.add(event.clone());
+		}
+		return Collections.unmodifiableList(result);
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lett.malcolm.consciouscalculator.emulator.events.DataRules;
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+
+/**
+ * Everything needed to bring an emulator back to where it was, between commands.
+ * 
+ * Covers:
+ * - working memory events, in the order stored
+ * - short-term memory events, in the order stored
+ * - events learned into long-term memory (the base layer of facts is not included)
+ * - conscious feedback and commands waiting for the next tick
+ * - interceptor state, keyed by interceptor class name
+ * 
+ * Interceptor state is made of {@link DataRules} data, which may also contain {@link Event}s.
+ * 
+ * Holds onto the events given, so callers must not modify them afterwards.
+ * 
+ * @author Malcolm Lett
+ */
+public class EmulatorState implements Serializable {
+	private static final long serialVersionUID = 1L;
+	
+	private final List<Event> workingMemory;
+	private final List<Event> shortTermMemory;
+	private final List<Event> learned;
+	private final List<Event> pendingFeedback;
+	private final List<String> pendingCommands;
+	private final Map<String, Object> interceptorStates;
+	
+	/**
+	 * @param workingMemory working memory events, in the order stored
+	 * @param shortTermMemory short-term memory events, in the order stored
+	 * @param learned events stored into long-term memory
+	 * @param pendingFeedback top events of conscious feedback not yet consumed (may include nulls)
+	 * @param pendingCommands commands not yet consumed
+	 * @param interceptorStates state of each stateful interceptor, by class name
+	 */
+	public EmulatorState(Collection<Event> workingMemory, Collection<Event> shortTermMemory,
+			Collection<Event> learned, Collection<Event> pendingFeedback, Collection<String> pendingCommands,
+			Map<String, Object> interceptorStates) {
+		this.workingMemory = Collections.unmodifiableList(new ArrayList<>(workingMemory));
+		this.shortTermMemory = Collections.unmodifiableList(new ArrayList<>(shortTermMemory));
+		this.learned = Collections.unmodifiableList(new ArrayList<>(learned));
+		this.pendingFeedback = Collections.unmodifiableList(new ArrayList<>(pendingFeedback));
+		this.pendingCommands = Collections.unmodifiableList(new ArrayList<>(pendingCommands));
+		this.interceptorStates = Collections.unmodifiableMap(new LinkedHashMap<>(interceptorStates));
+	}
+	
+	public List<Event> workingMemory() {
+		return workingMemory;
+	}
+	
+	public List<Event> shortTermMemory() {
+		return shortTermMemory;
+	}
+	
+	public List<Event> learned() {
+		return learned;
+	}
+	
+	public List<Event> pendingFeedback() {
+		return pendingFeedback;
+	}
+	
+	public List<String> pendingCommands() {
+		return pendingCommands;
+	}
+	
+	public Map<String, Object> interceptorStates() {
+		return interceptorStates;
+	}
+}
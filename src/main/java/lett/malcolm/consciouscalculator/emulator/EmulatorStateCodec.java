@@ -0,0 +1,134 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lett.malcolm.consciouscalculator.emulator.events.DataCodec;
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+
+/**
+ * Reads and writes {@link EmulatorState} in a compact binary form, using {@link DataCodec}.
+ * 
+ * Format: magic number, format version, and then each part of the state in turn.
+ * Guids are written once and referenced thereafter, so a checkpoint is typically
+ * a fraction of the size of the Java-serialized state.
+ * 
+ * @author Malcolm Lett
+ */
+public class EmulatorStateCodec {
+	private static final int MAGIC = 0x43434B50; // "CCKP"
+	private static final int VERSION = 2;
+	
+	private EmulatorStateCodec() {
+	}
+	
+	/**
+	 * Writes the state, and flushes, but doesn't close the stream.
+	 * @param state
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void write(EmulatorState state, OutputStream out) throws IOException {
+		DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(MAGIC);
+		header.writeByte(VERSION);
+		
+		DataCodec.Writer writer = new DataCodec.Writer(out);
+		writeEvents(writer, state.workingMemory());
+		writeEvents(writer, state.shortTermMemory());
+		writeEvents(writer, state.learned());
+		writeEvents(writer, state.pendingFeedback());
+		writer.writeCount(state.pendingCommands().size());
+		for (String command: state.pendingCommands()) {
+			writer.writeString(command);
+		}
+		writer.writeCount(state.interceptorStates().size());
+		for (Map.Entry<String, Object> entry: state.interceptorStates().entrySet()) {
+			writer.writeString(entry.getKey());
+			writer.writeValue(entry.getValue());
+		}
+		writer.flush();
+	}
+	
+	/**
+	 * Reads state written by {@link #write(EmulatorState, OutputStream)}.
+	 * Doesn't close the stream.
+	 * @param in
+	 * @param clock clock for restored events, normally that of the emulator being restored
+	 * @return state
+	 * @throws IOException if not a checkpoint, an unsupported version, or malformed
+	 */
+	public static EmulatorState read(InputStream in, Clock clock) throws IOException {
+		DataInputStream header = new DataInputStream(in);
+		if (header.readInt() != MAGIC) {
+			throw new IOException("Not an emulator checkpoint");
+		}
+		int version = header.readUnsignedByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported checkpoint version: " + version);
+		}
+		
+		DataCodec.Reader reader = new DataCodec.Reader(in, clock);
+		List<Event> workingMemory = readEvents(reader);
+		List<Event> shortTermMemory = readEvents(reader);
+		List<Event> learned = readEvents(reader);
+		List<Event> pendingFeedback = readEvents(reader);
+		List<String> pendingCommands = new ArrayList<>();
+		for (int count = reader.readCount(); count > 0; count--) {
+			pendingCommands.add(reader.readString());
+		}
+		Map<String, Object> interceptorStates = new LinkedHashMap<>();
+		for (int count = reader.readCount(); count > 0; count--) {
+			String key = reader.readString();
+			interceptorStates.put(key, reader.readValue());
+		}
+		
+		return new EmulatorState(workingMemory, shortTermMemory, learned, pendingFeedback, pendingCommands,
+				interceptorStates);
+	}
+	
+	private static void writeEvents(DataCodec.Writer writer, List<Event> events) throws IOException {
+		writer.writeCount(events.size());
+		for (Event event: events) {
+			writer.writeValue(event);
+		}
+	}
+	
+	private static List<Event> readEvents(DataCodec.Reader reader) throws IOException {
+		int count = reader.readCount();
+		List<Event> events = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Object value = reader.readValue();
+			if (value != null && !(value instanceof Event)) {
+				throw new IOException("Expected event, found " + value.getClass().getSimpleName());
+			}
+			events.add((Event) value);
+		}
+		return events;
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+
+import lett.malcolm.consciouscalculator.emulator.interfaces.InputView;
+
+/**
+ * The data taken from one input stream for the current tick.
+ * Reused from tick to tick, and shared read-only with all interceptors of the input.
+ * 
+ * @author Malcolm Lett
+ */
+class InputBatch<E> implements InputView<E> {
+	private final List<E> items = new ArrayList<>();
+	
+	/**
+	 * Takes everything currently available from the stream.
+	 * @param stream
+	 */
+	public void drainFrom(Queue<E> stream) {
+		E item;
+		while ((item = stream.poll()) != null) {
+			items.add(item);
+		}
+	}
+	
+	public void clear() {
+		items.clear();
+	}
+	
+	@Override
+	public int size() {
+		return items.size();
+	}
+
+	@Override
+	public E get(int index) {
+		return items.get(index);
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return Collections.unmodifiableList(items).iterator();
+	}
+	
+	@Override
+	public String toString() {
+		return items.toString();
+	}
+}
@@ -35,6 +35,7 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import lett.malcolm.consciouscalculator.emulator.events.Guids;
 import lett.malcolm.consciouscalculator.emulator.events.PerceptEvent;
 import lett.malcolm.consciouscalculator.emulator.facts.EquationFact;
 import lett.malcolm.consciouscalculator.emulator.facts.EquationOperatorFact;
@@ -70,6 +71,17 @@ import lett.malcolm.consciouscalculator.utils.CycleHandler;
  * Searches should start with an existing perception, and spread out to find related
  * concepts and memories.
  * 
+ * <h3>Layers</h3>
+ * Contents are held in two layers, which are consulted together:
+ * <ul>
+ * <li>an immutable base layer of the pre-programmed facts and concepts, built once and shared by all instances,
+ * <li>a per-instance overlay of whatever has been stored since.
+ * </ul>
+ * Events in the base layer are shared, so callers MUST NOT modify any events returned.
+ * 
+ * The overlay is only written by its own emulator, in turn with everything else it does,
+ * so it may be read concurrently (eg: by processors running in parallel), but never while being written.
+ * 
  * @author Malcolm Lett
  */
 // TODO should it store only Percepts? Or maybe it needs to store BOTH? Or only store Events, with percepts within them for concepts?
@@ -84,14 +96,34 @@ import lett.malcolm.consciouscalculator.utils.CycleHandler;
 public class LongTermMemory {
 	private static final Logger log = LoggerFactory.getLogger(LongTermMemory.class);
 	
-	private static final int DEFAULT_MAX_SEARCH_RESULT_COUNT = 10;
+	public static final int DEFAULT_MAX_SEARCH_RESULT_COUNT = 10;
+	
+	private int maxSearchResultCount = DEFAULT_MAX_SEARCH_RESULT_COUNT;
 
 	//private final int maxSize; // TODO
-	private final Map<String, Event> contents = new HashMap<>();
 	
+	private final Map<String, Event> overlay = new HashMap<>();
+	
+	/**
+	 * @param clock currently unused, as the pre-programmed concepts are shared, and have their own clock
+	 * @param maxSize
+	 */
 	public LongTermMemory(Clock clock, int maxSize) {
 		//this.maxSize = maxSize;
-		addPreprogrammedConcepts(clock, contents);
+	}
+	
+	/**
+	 * @param maxSearchResultCount maximum number of results from each search, defaults to {@link #DEFAULT_MAX_SEARCH_RESULT_COUNT}
+	 */
+	public void setMaxSearchResultCount(int maxSearchResultCount) {
+		this.maxSearchResultCount = maxSearchResultCount;
+	}
+	
+	/**
+	 * Discards everything stored since construction, leaving only the pre-programmed facts and concepts.
+	 */
+	public void reset() {
+		overlay.clear();
 	}
 
 	/**
@@ -123,8 +155,14 @@ public class LongTermMemory {
 	 */
 	public void store(Event event) {
 		log.debug("LTM Add:    " + event);
-		
-		put(contents, event);
+		put(overlay, event);
+	}
+	
+	/**
+	 * @return copy of everything stored since construction or reset, excluding the base layer of facts
+	 */
+	public Collection<Event> learned() {
+		return new ArrayList<>(overlay.values());
 	}
 	
 	/**
@@ -133,7 +171,8 @@ public class LongTermMemory {
 	 * @return found event, or null if not found
 	 */
 	public Event get(String guid) {
-		return contents.get(guid);
+		Event event = overlay.get(guid);
+		return (event != null) ? event : BaseLayer.CONTENTS.get(guid);
 	}
 	
 	/**
@@ -144,7 +183,7 @@ public class LongTermMemory {
 	 * Processors are expected to decide for themselves which are "better" for their needs.
 	 * 
 	 * Only a limited number of related entries will be returned, up to a maximum
-	 * (currently {@link #DEFAULT_MAX_SEARCH_RESULT_COUNT}).
+	 * (see {@link #setMaxSearchResultCount(int)}).
 	 * 
 	 * eg: searching from:
 	 * <pre>
@@ -179,7 +218,7 @@ public class LongTermMemory {
 	 * Processors are expected to decide for themselves which are "better" for their needs.
 	 * 
 	 * Only a limited number of related entries will be returned, up to a maximum
-	 * (currently {@link #DEFAULT_MAX_SEARCH_RESULT_COUNT}).
+	 * (see {@link #setMaxSearchResultCount(int)}).
 	 * 
 	 * eg: searching from:
 	 * <pre>
@@ -209,13 +248,13 @@ public class LongTermMemory {
 		// do immediate search
 		List<Event> found = new ArrayList<>();
 		if (referenceFlatPercepts.isEmpty()) {
-			addIfNonNull(found, contents.get(reference.guid()));
+			addIfNonNull(found, get(reference.guid()));
 		}
 		else {
 			for (Percept referencePercept: referenceFlatPercepts) {
-				addIfNonNull(found, contents.get(referencePercept.guid()));
+				addIfNonNull(found, get(referencePercept.guid()));
 				for (String ref: referencePercept.references()) {
-					addIfNonNull(found, contents.get(ref));
+					addIfNonNull(found, get(ref));
 				}
 			}
 		}
@@ -226,7 +265,7 @@ public class LongTermMemory {
 		// TODO filter to omit unnecessary "#Name#" facts
 		return found.stream()
 			.sorted(Comparator.comparingDouble((Event e) -> scoreRelatedness(reference, e)).reversed())
-			.limit(DEFAULT_MAX_SEARCH_RESULT_COUNT)
+			.limit(maxSearchResultCount)
 			.distinct()
 			.collect(Collectors.toList());
 	}
@@ -422,4 +461,19 @@ public class LongTermMemory {
 			collection.add(event);
 		}
 	}
+	
+	/**
+	 * The pre-programmed facts and concepts, built on first use and then shared by all instances.
+	 * (Lazy initialization holder idiom, relying on class initialization being thread-safe)
+	 * 
+	 * Guids are name-based, so they're the same on every run, whichever thread happens to build them.
+	 */
+	private static class BaseLayer {
+		private static final Map<String, Event> CONTENTS;
+		static {
+			Map<String, Event> contents = new HashMap<>();
+			Guids.runWith(Guids.named("base-layer"), () -> addPreprogrammedConcepts(Clock.systemDefaultZone(), contents));
+			CONTENTS = Collections.unmodifiableMap(contents);
+		}
+	}
 }
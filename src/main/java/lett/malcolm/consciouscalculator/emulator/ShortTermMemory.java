@@ -19,6 +19,7 @@ package lett.malcolm.consciouscalculator.emulator;
 
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -55,4 +56,18 @@ public class ShortTermMemory {
 		
 		contents.add(event);
 	}
+	
+	/**
+	 * Removes all memory items.
+	 */
+	public void clear() {
+		contents.clear();
+	}
+	
+	/**
+	 * @return all memory items, in the order stored
+	 */
+	public List<Event> all() {
+		return Collections.unmodifiableList(contents);
+	}
 }
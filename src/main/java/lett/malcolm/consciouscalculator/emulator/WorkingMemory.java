@@ -18,47 +18,195 @@
 package lett.malcolm.consciouscalculator.emulator;
 
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Queue;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import lett.malcolm.consciouscalculator.emulator.events.ReferenceSet;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventInterest;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
+import lett.malcolm.consciouscalculator.emulator.interfaces.IncrementalProcessor;
+import lett.malcolm.consciouscalculator.emulator.wm.EvictionCandidates;
+import lett.malcolm.consciouscalculator.emulator.wm.EvictionPolicy;
+import lett.malcolm.consciouscalculator.emulator.wm.LinearStrengthDecay;
+import lett.malcolm.consciouscalculator.emulator.wm.LowestStrengthEvictionPolicy;
+import lett.malcolm.consciouscalculator.emulator.wm.StrengthDecay;
 
 /**
+ * Internally, working memory is held as a guid index over a set of entries that are kept
+ * in priority order. Lookups by guid are O(1), and stores, replaces, and access to the
+ * top-most item are O(log n).
+ * 
+ * A reverse-reference index is also maintained, so that chains of events can be
+ * traversed in time proportional to the size of the chain.
+ * 
+ * Strengths decay lazily. Each entry records the strength and tick at which it was stored,
+ * and the effective strength is only calculated when the event is next read. Degrading strengths
+ * is thus O(1) per tick, and the rank of each entry remains valid without re-sorting.
+ * 
+ * Capacity is limited both by number of events, and by the total of their {@link Event#size()}.
+ * When either limit is exceeded, events are evicted according to the configured {@link EvictionPolicy},
+ * and optionally spilled into short-term memory.
+ * 
+ * Processors may subscribe an {@link EventInterest}, for which a candidate set is maintained
+ * as events are stored, so that they don't need to filter all events every tick.
+ * For each incremental processor, the subscription also tracks which of its candidates are pending:
+ * those added or replaced since the processor last declined them all, so that it only needs to
+ * re-evaluate what has changed.
+ * 
+ * Working memory can be temporarily made read-only, during which any attempt to modify it fails.
+ * Read access is safe from multiple threads while read-only, and only while read-only.
+ * 
  * @author Malcolm Lett
  */
 public class WorkingMemory {
 	private static final Logger log = LoggerFactory.getLogger(WorkingMemory.class);
-
+	
 	private final int maxSize;
+	private final StrengthDecay decay;
+	private long maxTotalSize = Long.MAX_VALUE;
+	private EvictionPolicy evictionPolicy = new LowestStrengthEvictionPolicy();
+	private ShortTermMemory spillTo;
+	
+	// Entries are ordered by their rank, and then by the order in which they were stored.
+	// The store sequence acts as a tie-breaker, so that events with the same strength are not treated
+	// as duplicates, and newly stored events go after existing events of the same strength.
+	// The index iterates in the order that entries were stored, oldest first.
+	private final Map<String, Entry> index = new LinkedHashMap<>();
+	private final NavigableSet<Entry> contents = new TreeSet<>();
+	private final Map<EventTag, NavigableSet<Entry>> contentsByTag = new EnumMap<>(EventTag.class);
+	private final EvictionCandidates evictionCandidates = new Candidates();
+	private long totalSize = 0;
+	
+	// Candidate sets, in priority order, for each subscribed interest
+	private final Map<EventInterest, Subscription> subscriptions = new LinkedHashMap<>();
+	private final Collection<Event> contentsView = new EventsView(contents);
+	private long nextSequence = 0;
+	
+	// Reverse reference adjacency: guid -> guids of events (in WM) that directly reference it.
+	// (Forward references are held against each entry)
+	private final Map<String, Set<String>> referencedBy = new HashMap<>();
+	
+	// Number of times that strengths have been degraded so far.
+	private long tick = 0;
 	
-	// FIXME need a better solution
-	// the comparator here is used for comparing of the 'keys' in the underlying map, not just the navigation order.
-	// so it teats all events with the same strength as duplicates, and keeps only the first.
-//	private final SortedSet<Event> contents = new TreeSet<>(
-//			Comparator.comparing(Event::strength).reversed());
+	private long evictionCount = 0;
+	private long evictedSize = 0;
 	
-	private final List<Event> contents = new ArrayList<>();
+	private volatile boolean readOnly = false;
 	
 	public WorkingMemory(int maxSize) {
+		this(maxSize, new LinearStrengthDecay());
+	}
+	
+	public WorkingMemory(int maxSize, StrengthDecay decay) {
 		this.maxSize = maxSize;
+		this.decay = decay;
+	}
+	
+	/**
+	 * Limits the total {@link Event#size()} of all events held.
+	 * Unlimited by default.
+	 * @param maxTotalSize
+	 */
+	public void setMaxTotalSize(long maxTotalSize) {
+		this.maxTotalSize = maxTotalSize;
+	}
+	
+	/**
+	 * Defaults to {@link LowestStrengthEvictionPolicy}.
+	 * @param evictionPolicy
+	 */
+	public void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+		this.evictionPolicy = evictionPolicy;
+	}
+	
+	/**
+	 * Optionally sets the short-term memory that evicted events are stored into.
+	 * @param shortTermMemory short-term memory, or null to discard evicted events
+	 */
+	public void setSpillTo(ShortTermMemory shortTermMemory) {
+		this.spillTo = shortTermMemory;
+	}
+	
+	/**
+	 * While read-only, all operations that would modify working memory throw {@link IllegalStateException}.
+	 * This includes subscribing new interests, and changing the pending events of incremental processors.
+	 * @param readOnly
+	 */
+	public void setReadOnly(boolean readOnly) {
+		this.readOnly = readOnly;
+	}
+	
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+	
+	private void assertWritable() {
+		if (readOnly) {
+			throw new IllegalStateException("Working memory is read-only");
+		}
 	}
 	
 	private void addInternal(Event event) {
-		// FIXME not ideal to sort every time, but here as a quick work around for now
-		contents.add(event);
-		contents.sort(Comparator.comparing(Event::strength).reversed());
+		Entry entry = new Entry(event, nextSequence++);
+		index.put(event.guid(), entry);
+		contents.add(entry);
+		totalSize += entry.size;
+		for (EventTag tag: entry.tags) {
+			contentsByTag.computeIfAbsent(tag, k -> new TreeSet<>()).add(entry);
+		}
+		for (Subscription subscription: subscriptions.values()) {
+			subscription.offer(entry);
+		}
+		
+		for (String reference: entry.references) {
+			referencedBy.computeIfAbsent(reference, k -> new HashSet<>()).add(event.guid());
+		}
+	}
+	
+	private boolean removeInternal(String guid) {
+		Entry existing = index.remove(guid);
+		if (existing != null) {
+			contents.remove(existing);
+			totalSize -= existing.size;
+			for (EventTag tag: existing.tags) {
+				contentsByTag.get(tag).remove(existing);
+			}
+			for (Subscription subscription: subscriptions.values()) {
+				subscription.candidates.remove(existing);
+				subscription.pendingBySubscriber.values().forEach(pending -> pending.entries.remove(existing));
+			}
+			
+			for (String reference: existing.references) {
+				Set<String> referencing = referencedBy.get(reference);
+				referencing.remove(guid);
+				if (referencing.isEmpty()) {
+					referencedBy.remove(reference);
+				}
+			}
+			return true;
+		}
+		return false;
 	}
 	
 	/**
@@ -71,14 +219,9 @@ public class WorkingMemory {
 	 */
 	public void store(Event event) {
 		// TODO apply strength, compaction, and obsolescence rules
+		assertWritable();
 		
-		boolean replaced = false;
-		
-		Optional<Event> existing = contents.stream().filter(e -> e.guid().equals(event.guid())).findFirst();
-		if (existing.isPresent()) {
-			contents.remove(existing.get());
-			replaced = true;
-		}
+		boolean replaced = removeInternal(event.guid());
 		addInternal(event);
 		
 		if (replaced) {
@@ -87,6 +230,84 @@ public class WorkingMemory {
 		else {
 			log.debug("WM Add:     " + event);
 		}
+		
+		evictWhileOverCapacity();
+	}
+	
+	/**
+	 * Evicts events, as selected by the eviction policy, until within capacity.
+	 * May evict the event that was just stored.
+	 */
+	private void evictWhileOverCapacity() {
+		while (index.size() > maxSize || totalSize > maxTotalSize) {
+			Event victim = evictionPolicy.selectVictim(evictionCandidates);
+			if (victim == null) {
+				log.warn("WM over capacity, but eviction policy selected nothing to evict: " + index.size() + " events, total size " + totalSize);
+				return;
+			}
+			
+			Entry entry = index.get(victim.guid());
+			if (entry == null) {
+				throw new IllegalStateException("Eviction policy selected an event not in working memory: " + victim);
+			}
+			removeInternal(victim.guid());
+			evictionCount++;
+			evictedSize += entry.size;
+			log.debug("WM Evict:   " + victim);
+			
+			if (spillTo != null) {
+				spillTo.store(victim);
+			}
+		}
+	}
+	
+	/**
+	 * Removes all events, and resets the tick and eviction counters,
+	 * but retains configuration and subscriptions.
+	 */
+	public void clear() {
+		assertWritable();
+		index.clear();
+		contents.clear();
+		contentsByTag.clear();
+		referencedBy.clear();
+		for (Subscription subscription: subscriptions.values()) {
+			subscription.candidates.clear();
+			subscription.pendingBySubscriber.values().forEach(pending -> pending.entries.clear());
+		}
+		totalSize = 0;
+		nextSequence = 0;
+		tick = 0;
+		evictionCount = 0;
+		evictedSize = 0;
+	}
+	
+	/**
+	 * @return number of events currently held
+	 */
+	public int size() {
+		return index.size();
+	}
+	
+	/**
+	 * @return total {@link Event#size()} of the events currently held
+	 */
+	public long totalSize() {
+		return totalSize;
+	}
+	
+	/**
+	 * @return number of events evicted so far
+	 */
+	public long evictionCount() {
+		return evictionCount;
+	}
+	
+	/**
+	 * @return total {@link Event#size()} of the events evicted so far
+	 */
+	public long evictedSize() {
+		return evictedSize;
 	}
 	
 	/**
@@ -94,7 +315,78 @@ public class WorkingMemory {
 	 * @return all memory items, in priority order of navigation
 	 */
 	public Collection<Event> all() {
-		return Collections.unmodifiableList(contents);
+		return contentsView;
+	}
+	
+	/**
+	 * @return all memory items, oldest stored first
+	 */
+	public List<Event> allInStoredOrder() {
+		List<Event> result = new ArrayList<>(index.size());
+		for (Entry entry: index.values()) {
+			result.add(entry.event());
+		}
+		return result;
+	}
+	
+	/**
+	 * Registers interest in a subset of events, so that a candidate set is maintained for it
+	 * from now on. Has no effect if an equal interest is already subscribed.
+	 * @param interest
+	 */
+	public void subscribe(EventInterest interest) {
+		if (!subscriptions.containsKey(interest)) {
+			assertWritable();
+			Subscription subscription = new Subscription(interest);
+			for (Entry entry: contents) {
+				subscription.offer(entry);
+			}
+			subscriptions.put(interest, subscription);
+		}
+	}
+	
+	/**
+	 * Gets the events matching the given interest.
+	 * Subscribes the interest if not already subscribed.
+	 * 
+	 * Callers MUST NOT modify the returned collection.
+	 * @param interest
+	 * @return matching events, in priority order of navigation
+	 */
+	public Collection<Event> candidates(EventInterest interest) {
+		subscribe(interest);
+		return subscriptions.get(interest).view;
+	}
+	
+	/**
+	 * Gets the events matching the processor's interest that have been added or replaced
+	 * since {@link #clearPending(IncrementalProcessor)} was last called for it.
+	 * On first call for a processor, all matching events are pending.
+	 * 
+	 * Callers MUST NOT modify the returned collection.
+	 * @param processor
+	 * @return pending matching events, in priority order of navigation
+	 */
+	public Collection<Event> pending(IncrementalProcessor processor) {
+		EventInterest interest = processor.interest();
+		subscribe(interest);
+		return subscriptions.get(interest).pendingFor(processor).view;
+	}
+	
+	/**
+	 * Marks all events currently matching the processor's interest as no longer pending for that processor.
+	 * They will become pending again if replaced.
+	 * @param processor
+	 */
+	public void clearPending(IncrementalProcessor processor) {
+		assertWritable();
+		Subscription subscription = subscriptions.get(processor.interest());
+		if (subscription != null) {
+			PendingSet pending = subscription.pendingBySubscriber.get(processor);
+			if (pending != null) {
+				pending.entries.clear();
+			}
+		}
 	}
 	
 	/**
@@ -103,7 +395,7 @@ public class WorkingMemory {
 	 */
 	public Event top() {
 		if (!contents.isEmpty()) {
-			return all().iterator().next();
+			return contents.first().event();
 		}
 		return null;
 	}
@@ -114,12 +406,8 @@ public class WorkingMemory {
 	 * @return the found event, or null if not found
 	 */
 	public Event get(String guid) {
-		for (Event event: contents) {
-			if (event.guid().equals(guid)) {
-				return event;
-			}
-		}
-		return null;
+		Entry entry = index.get(guid);
+		return (entry == null) ? null : entry.event();
 	}
 	
 	/**
@@ -127,15 +415,32 @@ public class WorkingMemory {
 	 * @param guid
 	 * @return found events in decreasing strength order, or empty list if none
 	 */
-	// FIXME not ideal to sort every time, but here as a quick work around for now
 	public List<Event> getReferencesTo(String guid) {
-		List<Event> list = contents.stream()
-				.filter(e -> e.references().contains(guid))
-				.sorted(Comparator.comparing(Event::strength).reversed())
-				.collect(Collectors.toList());
+		List<Event> list = new ArrayList<>();
+		for (Entry entry: getReferencingEntries(guid)) {
+			list.add(entry.event());
+		}
 		return Collections.unmodifiableList(list);
 	}
 	
+	/**
+	 * Gets entries for all events directly referencing the specified guid, in priority order.
+	 * Only sorts the referencing entries, which are usually few.
+	 */
+	private List<Entry> getReferencingEntries(String guid) {
+		Set<String> referencing = referencedBy.get(guid);
+		if (referencing == null) {
+			return Collections.emptyList();
+		}
+		
+		List<Entry> entries = new ArrayList<>(referencing.size());
+		for (String referencingGuid: referencing) {
+			entries.add(index.get(referencingGuid));
+		}
+		Collections.sort(entries);
+		return entries;
+	}
+	
 	/**
 	 * Gets the chain of events, starting with the given guid (inclusive).
 	 * 
@@ -180,6 +485,8 @@ public class WorkingMemory {
 	 * 
 	 * In the common scenario where events have multiple referencing events, creating a tree, the tree is flattened
 	 * and returned as a list.
+	 * 
+	 * Walks the reverse-reference index, so only visits events within the chain.
 	 * @param guid
 	 * @return chain or flattened tree, if found; empty list otherwise
 	 */
@@ -194,13 +501,11 @@ public class WorkingMemory {
 		while (!guids.isEmpty()) {
 			String it = guids.poll();
 			
-			if (!observed.contains(it)) {
-				observed.add(it);
-				
-				Event event = get(it);
-				if (event != null) {
-					chain.add(event);
-					getReferencesTo(it).forEach(e -> guids.offer(e.guid()));
+			if (observed.add(it)) {
+				Entry entry = index.get(it);
+				if (entry != null) {
+					chain.add(entry.event());
+					getReferencingEntries(it).forEach(e -> guids.offer(e.event.guid()));
 				}
 			}
 		}
@@ -232,13 +537,11 @@ public class WorkingMemory {
 		while (!guids.isEmpty()) {
 			String it = guids.poll();
 			
-			if (!observed.contains(it)) {
-				observed.add(it);
-				
-				Event event = get(it);
-				if (event != null) {
-					chain.add(event);
-					event.references().forEach(guids::offer);
+			if (observed.add(it)) {
+				Entry entry = index.get(it);
+				if (entry != null) {
+					chain.add(entry.event());
+					entry.references.forEach(guids::offer);
 				}
 			}
 		}
@@ -264,17 +567,188 @@ public class WorkingMemory {
 			return true;
 		}
 		
-		return this.getChainEndingWith(endEvent).stream()
-				.anyMatch(e -> e.references().contains(targetGuid));
+		// work backwards from 'endEvent', stopping as soon as the start is found
+		Set<String> observed = new HashSet<>();
+		Queue<String> guids = new LinkedList<>();
+		guids.offer(endEvent.guid());
+		
+		while (!guids.isEmpty()) {
+			String it = guids.poll();
+			
+			if (observed.add(it)) {
+				Entry entry = index.get(it);
+				if (entry != null) {
+					if (entry.references.contains(targetGuid)) {
+						return true;
+					}
+					entry.references.forEach(guids::offer);
+				}
+			}
+		}
+		return false;
 	}
 	
 	/**
-	 * Degrades all strengths by 0.01.
+	 * Degrades all strengths by one tick, according to the configured decay.
+	 * 
+	 * The new strengths are applied to each event when it is next read.
+	 * Relative order of events remains unchanged.
 	 */
 	public void degradeStrengths() {
-		for (Event event: contents) {
-			event.setStrength(event.strength() - 0.01);
+		assertWritable();
+		tick++;
+	}
+	
+	/**
+	 * Holds an event within working memory, along with the strength and tick it was stored with,
+	 * and copies of its size, tags, and references as at the time it was stored.
+	 */
+	private class Entry implements Comparable<Entry> {
+		private final Event event;
+		private final double storedStrength;
+		private final long storedTick;
+		private final double rank;
+		private final long sequence;
+		private final int size;
+		private final Set<EventTag> tags;
+		private final Set<String> references;
+		
+		// tick as at which the event's strength was last updated
+		private long appliedTick;
+		
+		public Entry(Event event, long sequence) {
+			this.event = event;
+			this.storedStrength = event.strength();
+			this.storedTick = tick;
+			this.rank = decay.rankOf(storedStrength, storedTick);
+			this.sequence = sequence;
+			this.size = event.size();
+			this.tags = event.tags().isEmpty() ? EnumSet.noneOf(EventTag.class) : EnumSet.copyOf(event.tags());
+			this.references = new ReferenceSet(event.references());
+			this.appliedTick = tick;
+		}
+		
+		/**
+		 * Gets the event, first bringing its strength up to date with the current tick.
+		 * Synchronized, as this may be called concurrently while working memory is read-only.
+		 */
+		public synchronized Event event() {
+			if (appliedTick != tick) {
+				event.setStrength(decay.strengthAfter(storedStrength, tick - storedTick));
+				appliedTick = tick;
+			}
+			return event;
+		}
+
+		/**
+		 * Highest rank first, and otherwise in the order stored.
+		 */
+		@Override
+		public int compareTo(Entry other) {
+			int res = Double.compare(other.rank, this.rank);
+			if (res == 0) {
+				res = Long.compare(this.sequence, other.sequence);
+			}
+			return res;
+		}
+	}
+	
+	/**
+	 * Exposes the orderings maintained by working memory to the eviction policy.
+	 */
+	private class Candidates implements EvictionCandidates {
+		@Override
+		public Event weakest() {
+			return contents.isEmpty() ? null : contents.last().event();
+		}
+
+		@Override
+		public Event oldest() {
+			return index.isEmpty() ? null : index.values().iterator().next().event();
+		}
+
+		@Override
+		public Event weakestTagged(EventTag tag) {
+			NavigableSet<Entry> tagged = contentsByTag.get(tag);
+			return (tagged == null || tagged.isEmpty()) ? null : tagged.last().event();
+		}
+	}
+	
+	/**
+	 * Candidate set for a subscribed interest, and the subset of those still pending
+	 * for each incremental processor sharing the interest.
+	 * Matched against events as at the time they are stored.
+	 */
+	private class Subscription {
+		private final EventInterest interest;
+		private final NavigableSet<Entry> candidates = new TreeSet<>();
+		private final Collection<Event> view = new EventsView(candidates);
+		private final Map<IncrementalProcessor, PendingSet> pendingBySubscriber = new IdentityHashMap<>();
+		
+		public Subscription(EventInterest interest) {
+			this.interest = interest;
+		}
+		
+		public void offer(Entry entry) {
+			if (interest.matches(entry.event)) {
+				candidates.add(entry);
+				pendingBySubscriber.values().forEach(pending -> pending.entries.add(entry));
+			}
+		}
+		
+		public PendingSet pendingFor(IncrementalProcessor processor) {
+			PendingSet pending = pendingBySubscriber.get(processor);
+			if (pending == null) {
+				assertWritable();
+				pending = new PendingSet(candidates);
+				pendingBySubscriber.put(processor, pending);
+			}
+			return pending;
 		}
 	}
 	
+	/**
+	 * Entries pending for a single incremental processor.
+	 */
+	private class PendingSet {
+		private final NavigableSet<Entry> entries;
+		private final Collection<Event> view;
+		
+		public PendingSet(NavigableSet<Entry> initial) {
+			this.entries = new TreeSet<>(initial);
+			this.view = new EventsView(entries);
+		}
+	}
+	
+	/**
+	 * Read-only view of the events in a set of entries, in priority order.
+	 */
+	private class EventsView extends AbstractCollection<Event> {
+		private final NavigableSet<Entry> entries;
+		
+		public EventsView(NavigableSet<Entry> entries) {
+			this.entries = entries;
+		}
+		
+		@Override
+		public Iterator<Event> iterator() {
+			Iterator<Entry> itr = entries.iterator();
+			return new Iterator<Event>() {
+				@Override
+				public boolean hasNext() {
+					return itr.hasNext();
+				}
+
+				@Override
+				public Event next() {
+					return itr.next().event();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return entries.size();
+		}
+	}
 }
@@ -28,6 +28,8 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
  * @author Malcolm Lett
  */
 public class ActionEvent extends BaseEvent implements Event {
+	private static final long serialVersionUID = 1L;
+	
 	public ActionEvent(Clock clock, String text) {
 		super(clock);
 		this.setData(text);
@@ -18,15 +18,15 @@
 package lett.malcolm.consciouscalculator.emulator.events;
 
 
+import java.io.Serializable;
 import java.time.Clock;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.UUID;
 
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
 import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.TickClock;
 import lett.malcolm.consciouscalculator.utils.Events;
 import lett.malcolm.consciouscalculator.utils.QuantityUtils;
 
@@ -35,20 +35,28 @@ import lett.malcolm.consciouscalculator.utils.QuantityUtils;
  * 
  * @author Malcolm Lett
  */
-abstract class BaseEvent implements Event {
+abstract class BaseEvent implements Event, Serializable {
+	private static final long serialVersionUID = 1L;
+	
 	private String guid;
 	private double strength = 0;
 	private Instant timestamp;
+	private long tick;
 	//private int size = 1; // dynamically calculated in size()
 	private Set<EventTag> tags = new HashSet<>();
-	private Set<String> references = new HashSet<>();
+	private Set<String> references = new ReferenceSet();
 	private Object data;
-	private Clock clock;
+	
+	// not saved with the event; re-attached when restored
+	private transient Clock clock;
 			
 	public BaseEvent(Clock clock) {
 		this.clock = clock;
-		this.guid = UUID.randomUUID().toString();
+		this.guid = Guids.next();
 		this.timestamp = clock.instant();
+		if (clock instanceof TickClock) {
+			this.tick = ((TickClock) clock).tick();
+		}
 	}
 
 	@Override
@@ -73,8 +81,10 @@ abstract class BaseEvent implements Event {
 		buf.append(Events.toShortGuid(guid())).append(",");
 		
 		// age
-		long age = Duration.between(timestamp, clock.instant()).toMillis();
-		buf.append(QuantityUtils.toShortMillisString(age)).append(",");
+		if (clock != null) {
+			long age = clock.millis() - timestamp.toEpochMilli();
+			buf.append(QuantityUtils.toShortMillisString(age)).append(",");
+		}
 		
 		// strength
 		buf.append(String.format("%.03f", strength)).append(",");
@@ -107,6 +117,11 @@ abstract class BaseEvent implements Event {
 		return timestamp;
 	}
 
+	@Override
+	public long tick() {
+		return tick;
+	}
+
 	@Override
 	public double strength() {
 		return strength;
@@ -138,6 +153,15 @@ abstract class BaseEvent implements Event {
 		this.timestamp = timestamp;
 	}
 
+	public void setTick(long tick) {
+		this.tick = tick;
+	}
+
+	@Override
+	public void setClock(Clock clock) {
+		this.clock = clock;
+	}
+
 	public void setGuid(String guid) {
 		this.guid = guid;
 	}
@@ -151,7 +175,10 @@ abstract class BaseEvent implements Event {
 
 	public void setReferences(Set<String> references) {
 		if (references == null) {
-			references = new HashSet<>();
+			references = new ReferenceSet();
+		}
+		else if (!(references instanceof ReferenceSet)) {
+			references = new ReferenceSet(references);
 		}
 		this.references = references;
 	}
@@ -0,0 +1,463 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.events;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
+import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
+
+/**
+ * Compact binary encoding of data permitted by {@link DataRules}, and of {@link Event}s.
+ * 
+ * Encoding:
+ * <ul>
+ * <li> each value starts with a one-byte type
+ * <li> counts, and integers, are variable-length, so small numbers take a single byte
+ * <li> strings are interned: each distinct string is written once, then referred to by index,
+ *      which suits the many repeated guids in references
+ * <li> lists, maps, percepts and events that appear more than once are written once, then referred to by index,
+ *      so shared objects survive a round trip, as do cycles through lists, maps and events
+ * <li> percepts can't be part of a cycle, as they're immutable so can't be decoded before their data,
+ *      and are rejected when written
+ * <li> events are written by type name, from a fixed set of known types (see {@link #eventTypes()})
+ * </ul>
+ * 
+ * Decoded lists and maps are always {@link ArrayList} and {@link HashMap}, as produced by
+ * {@link DataRules#clone(Object)}.
+ * 
+ * A writer and its reader must handle values in the same order, as state is carried between them.
+ * 
+ * @author Malcolm Lett
+ */
+public class DataCodec {
+	// value types
+	private static final int NULL = 0;
+	private static final int STRING = 1;
+	private static final int INTEGER = 2;
+	private static final int DOUBLE = 3;
+	private static final int TRUE = 4;
+	private static final int FALSE = 5;
+	private static final int PERCEPT = 6;
+	private static final int LIST = 7;
+	private static final int MAP = 8;
+	private static final int EVENT = 9;
+	private static final int BACK_REFERENCE = 10;
+	
+	// known event types, by name written, and how to create each for decoding
+	private static final Map<Class<? extends BaseEvent>, String> EVENT_NAMES = new HashMap<>();
+	private static final Map<String, Function<Clock, BaseEvent>> EVENT_FACTORIES = new HashMap<>();
+	static {
+		registerEvent(ActionEvent.class, clock -> new ActionEvent(clock, null));
+		registerEvent(MemoryEvent.class, clock -> new MemoryEvent(clock, null, null));
+		registerEvent(MemorySearchRequestEvent.class, clock -> new MemorySearchRequestEvent(clock, null));
+		registerEvent(PerceptEvent.class, clock -> new PerceptEvent(clock, null));
+		registerEvent(StuckThoughtEvent.class, clock -> new StuckThoughtEvent(clock, null));
+		registerEvent(TextRequestEvent.class, clock -> new TextRequestEvent(clock, null));
+	}
+	
+	private DataCodec() {
+	}
+	
+	/**
+	 * @return event types that can be encoded
+	 */
+	static Set<Class<? extends BaseEvent>> eventTypes() {
+		return Collections.unmodifiableSet(EVENT_NAMES.keySet());
+	}
+	
+	/**
+	 * @param factory creates an event of the type, with everything to be overwritten
+	 */
+	private static <T extends BaseEvent> void registerEvent(Class<T> type, Function<Clock, T> factory) {
+		EVENT_NAMES.put(type, type.getSimpleName());
+		EVENT_FACTORIES.put(type.getSimpleName(), factory::apply);
+	}
+	
+	/**
+	 * Encodes values onto a stream.
+	 * Not thread-safe.
+	 */
+	public static class Writer {
+		private final DataOutputStream out;
+		private final Map<String, Integer> strings = new HashMap<>();
+		private final Map<Object, Integer> objects = new IdentityHashMap<>();
+		
+		// percepts whose data is being written
+		private final Set<Percept> openPercepts = Collections.newSetFromMap(new IdentityHashMap<>());
+		
+		/**
+		 * @param out stream to write to, preferably buffered
+		 */
+		public Writer(OutputStream out) {
+			this.out = new DataOutputStream(out);
+		}
+		
+		/**
+		 * Writes data permitted by {@link DataRules}, or an {@link Event}, or a structure
+		 * otherwise permitted by data rules that also contains events.
+		 * @param value
+		 * @throws IOException
+		 * @throws IllegalArgumentException if not a permitted type, an unknown event type, or a percept within itself
+		 */
+		@SuppressWarnings("unchecked")
+		public void writeValue(Object value) throws IOException {
+			if (value == null) {
+				out.writeByte(NULL);
+			}
+			else if (value instanceof String) {
+				out.writeByte(STRING);
+				writeString((String) value);
+			}
+			else if (value instanceof Integer) {
+				out.writeByte(INTEGER);
+				writeSignedVarLong((Integer) value);
+			}
+			else if (value instanceof Double) {
+				out.writeByte(DOUBLE);
+				out.writeDouble((Double) value);
+			}
+			else if (value instanceof Boolean) {
+				out.writeByte(((Boolean) value) ? TRUE : FALSE);
+			}
+			else if (openPercepts.contains(value)) {
+				throw new IllegalArgumentException("Percept " + ((Percept) value).guid() + " contains itself, which can't be decoded");
+			}
+			else if (value instanceof Event && !EVENT_NAMES.containsKey(value.getClass())) {
+				throw new IllegalArgumentException("Event type " + value.getClass().getName() + " not known to DataCodec");
+			}
+			else if (writeBackReference(value)) {
+				// already written
+			}
+			else if (value instanceof Percept) {
+				Percept percept = (Percept) value;
+				out.writeByte(PERCEPT);
+				writeString(percept.guid());
+				writeStrings(percept.references());
+				openPercepts.add(percept);
+				writeValue(percept.data());
+				openPercepts.remove(percept);
+			}
+			else if (value instanceof List) {
+				List<Object> list = (List<Object>) value;
+				out.writeByte(LIST);
+				writeCount(list.size());
+				for (Object item: list) {
+					writeValue(item);
+				}
+			}
+			else if (value instanceof Map) {
+				Map<String, Object> map = (Map<String, Object>) value;
+				out.writeByte(MAP);
+				writeCount(map.size());
+				for (Map.Entry<String, Object> entry: map.entrySet()) {
+					writeString(entry.getKey());
+					writeValue(entry.getValue());
+				}
+			}
+			else if (value instanceof Event) {
+				Event event = (Event) value;
+				out.writeByte(EVENT);
+				writeString(EVENT_NAMES.get(event.getClass()));
+				writeString(event.guid());
+				writeSignedVarLong(event.timestamp().getEpochSecond());
+				writeVarLong(event.timestamp().getNano());
+				writeVarLong(event.tick());
+				out.writeDouble(event.strength());
+				writeCount(event.tags().size());
+				for (EventTag tag: event.tags()) {
+					writeString(tag.name());
+				}
+				writeStrings(event.references());
+				writeValue(event.data());
+			}
+			else {
+				throw new IllegalArgumentException("Objects of type " + value.getClass().getName() + " not permitted by Data Rules");
+			}
+		}
+		
+		/**
+		 * Writes a non-null string, interned.
+		 * @param value
+		 * @throws IOException
+		 */
+		public void writeString(String value) throws IOException {
+			Integer index = strings.get(value);
+			if (index != null) {
+				writeVarLong(index + 1);
+			}
+			else {
+				strings.put(value, strings.size());
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				writeVarLong(0);
+				writeVarLong(bytes.length);
+				out.write(bytes);
+			}
+		}
+		
+		/**
+		 * @param count non-negative
+		 * @throws IOException
+		 */
+		public void writeCount(int count) throws IOException {
+			writeVarLong(count);
+		}
+		
+		/**
+		 * Writes a long, using fewer bytes for numbers closer to zero.
+		 * @param value
+		 * @throws IOException
+		 */
+		public void writeLong(long value) throws IOException {
+			writeSignedVarLong(value);
+		}
+		
+		public void flush() throws IOException {
+			out.flush();
+		}
+		
+		private void writeStrings(Set<String> values) throws IOException {
+			writeCount(values.size());
+			for (String value: values) {
+				writeString(value);
+			}
+		}
+		
+		/**
+		 * Writes a back-reference if the object has already been written,
+		 * otherwise assigns it the next index.
+		 */
+		private boolean writeBackReference(Object value) throws IOException {
+			Integer index = objects.get(value);
+			if (index != null) {
+				out.writeByte(BACK_REFERENCE);
+				writeVarLong(index);
+				return true;
+			}
+			objects.put(value, objects.size());
+			return false;
+		}
+		
+		private void writeSignedVarLong(long value) throws IOException {
+			// zig-zag, so that small negative numbers are small too
+			writeVarLong((value << 1) ^ (value >> 63));
+		}
+		
+		private void writeVarLong(long value) throws IOException {
+			while ((value & ~0x7FL) != 0) {
+				out.writeByte((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			out.writeByte((int) value);
+		}
+	}
+	
+	/**
+	 * Decodes values written by a {@link Writer}.
+	 * Not thread-safe.
+	 */
+	public static class Reader {
+		private final DataInputStream in;
+		private final Clock clock;
+		private final List<String> strings = new ArrayList<>();
+		private final List<Object> objects = new ArrayList<>();
+		
+		/**
+		 * @param in stream to read from, preferably buffered
+		 * @param clock clock given to decoded events
+		 */
+		public Reader(InputStream in, Clock clock) {
+			this.in = new DataInputStream(in);
+			this.clock = clock;
+		}
+		
+		/**
+		 * @return next value
+		 * @throws IOException if malformed
+		 */
+		public Object readValue() throws IOException {
+			int type = in.readUnsignedByte();
+			switch (type) {
+			case NULL:
+				return null;
+			case STRING:
+				return readString();
+			case INTEGER:
+				return (int) readSignedVarLong();
+			case DOUBLE:
+				return in.readDouble();
+			case TRUE:
+				return Boolean.TRUE;
+			case FALSE:
+				return Boolean.FALSE;
+			case PERCEPT: {
+				// reserve index before reading contents, to match the writer
+				int index = reserve();
+				String guid = readString();
+				Set<String> references = readStrings();
+				Percept percept = new Percept(guid, references, readValue());
+				objects.set(index, percept);
+				return percept;
+			}
+			case LIST: {
+				int count = readCount();
+				List<Object> list = new ArrayList<>(count);
+				objects.add(list);
+				for (int i = 0; i < count; i++) {
+					list.add(readValue());
+				}
+				return list;
+			}
+			case MAP: {
+				int count = readCount();
+				Map<String, Object> map = new HashMap<>();
+				objects.add(map);
+				for (int i = 0; i < count; i++) {
+					String key = readString();
+					map.put(key, readValue());
+				}
+				return map;
+			}
+			case EVENT: {
+				BaseEvent event = newEvent(readString());
+				objects.add(event);
+				event.setGuid(readString());
+				long seconds = readSignedVarLong();
+				event.setTimestamp(Instant.ofEpochSecond(seconds, readVarLong()));
+				event.setTick(readVarLong());
+				event.setStrength(in.readDouble());
+				Set<EventTag> tags = new HashSet<>();
+				for (int count = readCount(); count > 0; count--) {
+					tags.add(EventTag.valueOf(readString()));
+				}
+				event.setTags(tags);
+				event.setReferences(readStrings());
+				event.setData(readValue());
+				return event;
+			}
+			case BACK_REFERENCE: {
+				long index = readVarLong();
+				if (index >= objects.size() || objects.get((int) index) == null) {
+					throw new IOException("Invalid back-reference: " + index);
+				}
+				return objects.get((int) index);
+			}
+			default:
+				throw new IOException("Unknown value type: " + type);
+			}
+		}
+		
+		/**
+		 * @return next interned string
+		 * @throws IOException if malformed
+		 */
+		public String readString() throws IOException {
+			long index = readVarLong();
+			if (index > 0) {
+				if (index > strings.size()) {
+					throw new IOException("Invalid string reference: " + index);
+				}
+				return strings.get((int) index - 1);
+			}
+			byte[] bytes = new byte[readCount()];
+			in.readFully(bytes);
+			String value = new String(bytes, StandardCharsets.UTF_8);
+			strings.add(value);
+			return value;
+		}
+		
+		/**
+		 * @return next count
+		 * @throws IOException if malformed
+		 */
+		public int readCount() throws IOException {
+			long count = readVarLong();
+			if (count > Integer.MAX_VALUE) {
+				throw new IOException("Invalid count: " + count);
+			}
+			return (int) count;
+		}
+		
+		/**
+		 * @return next long
+		 * @throws IOException if malformed
+		 */
+		public long readLong() throws IOException {
+			return readSignedVarLong();
+		}
+		
+		private Set<String> readStrings() throws IOException {
+			Set<String> values = new ReferenceSet();
+			for (int count = readCount(); count > 0; count--) {
+				values.add(readString());
+			}
+			return values;
+		}
+		
+		private int reserve() {
+			objects.add(null);
+			return objects.size() - 1;
+		}
+		
+		/**
+		 * Creates an event of the given type, with everything to be overwritten.
+		 */
+		private BaseEvent newEvent(String type) throws IOException {
+			Function<Clock, BaseEvent> factory = EVENT_FACTORIES.get(type);
+			if (factory == null) {
+				throw new IOException("Unknown event type: " + type);
+			}
+			return factory.apply(clock);
+		}
+		
+		private long readSignedVarLong() throws IOException {
+			long value = readVarLong();
+			return (value >>> 1) ^ -(value & 1);
+		}
+		
+		private long readVarLong() throws IOException {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = in.readUnsignedByte();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new EOFException("Malformed variable-length number");
+		}
+	}
+}
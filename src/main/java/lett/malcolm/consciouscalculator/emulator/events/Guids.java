@@ -0,0 +1,148 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.events;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import lett.malcolm.consciouscalculator.emulator.interfaces.IdGenerator;
+
+/**
+ * Source of guids for new events and percepts.
+ * 
+ * Guids come from the current thread's {@link IdGenerator}, which is a {@link RandomIdGenerator} by default.
+ * A different generator can be used by the current thread for the duration of a call, eg:
+ * <pre>
+ * Guids.runWith(new SeededIdGenerator(42), () -&gt; {
+ *     ...
+ * });
+ * </pre>
+ * 
+ * Emulators open a scope for their own generator, if they have one, while running,
+ * including on the threads that run processors in parallel.
+ * 
+ * @author Malcolm Lett
+ */
+public class Guids {
+	private static final ThreadLocal<IdGenerator> GENERATOR = new ThreadLocal<>();
+	
+	private Guids() {
+	}
+	
+	/**
+	 * @return new guid, from the current thread's generator
+	 */
+	public static String next() {
+		return current().nextId();
+	}
+	
+	/**
+	 * @return the current thread's generator
+	 */
+	public static IdGenerator current() {
+		IdGenerator generator = GENERATOR.get();
+		return (generator == null) ? RandomIdGenerator.INSTANCE : generator;
+	}
+	
+	/**
+	 * Uses the given generator on the current thread, until the returned scope is closed.
+	 * Scopes may be nested, and must be closed in reverse order.
+	 * @param generator generator to use, or null for the default
+	 * @return scope, to be closed
+	 */
+	public static Scope use(IdGenerator generator) {
+		Scope scope = new Scope(GENERATOR.get());
+		GENERATOR.set(generator);
+		return scope;
+	}
+	
+	/**
+	 * Calls the body using the given generator on the current thread, then restores the previous one.
+	 * @param generator generator to use, or null for the default
+	 * @param body
+	 * @return result of body
+	 */
+	public static <T> T callWith(IdGenerator generator, Supplier<T> body) {
+		Scope scope = use(generator);
+		try {
+			return body.get();
+		} finally {
+			scope.close();
+		}
+	}
+	
+	/**
+	 * Runs the body using the given generator on the current thread, then restores the previous one.
+	 * @param generator generator to use, or null for the default
+	 * @param body
+	 */
+	public static void runWith(IdGenerator generator, Runnable body) {
+		callWith(generator, () -> {
+			body.run();
+			return null;
+		});
+	}
+	
+	/**
+	 * Generates the same sequence of name-based UUIDs for the same namespace.
+	 * These never clash with random UUIDs, which are a different version, or with counter-based ids.
+	 * @param namespace
+	 * @return generator
+	 */
+	public static IdGenerator named(String namespace) {
+		AtomicLong counter = new AtomicLong();
+		return () -> UUID.nameUUIDFromBytes((namespace + ":" + counter.incrementAndGet())
+				.getBytes(StandardCharsets.UTF_8)).toString();
+	}
+	
+	/**
+	 * Formats random bits as a version 4 UUID.
+	 * @param msb random bits
+	 * @param lsb random bits
+	 * @return uuid string
+	 */
+	static String randomUuidOf(long msb, long lsb) {
+		// same version and variant bits as UUID.randomUUID()
+		msb = (msb & ~0xF000L) | 0x4000L;
+		lsb = (lsb & ~(0xC000L << 48)) | (0x8000L << 48);
+		return new UUID(msb, lsb).toString();
+	}
+	
+	/**
+	 * Restores the previous generator when closed.
+	 */
+	public static class Scope implements AutoCloseable {
+		private final IdGenerator previous;
+		
+		private Scope(IdGenerator previous) {
+			this.previous = previous;
+		}
+		
+		@Override
+		public void close() {
+			if (previous == null) {
+				GENERATOR.remove();
+			}
+			else {
+				GENERATOR.set(previous);
+			}
+		}
+	}
+}
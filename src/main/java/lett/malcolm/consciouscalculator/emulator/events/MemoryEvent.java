@@ -35,6 +35,8 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
 // TODO when recalling 'concepts' from LTM, the existing structure here may not work
 // TODO change to be able to store raw Percept data, or even collections of Percepts
 public class MemoryEvent extends BaseEvent implements Event {
+	private static final long serialVersionUID = 1L;
+	
 	public MemoryEvent(Clock clock, String eventType, Object eventData) {
 		super(clock);
 		
@@ -27,6 +27,8 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
  * @author Malcolm Lett
  */
 public class MemorySearchRequestEvent extends BaseEvent implements Event {
+	private static final long serialVersionUID = 1L;
+	
 	public MemorySearchRequestEvent(Clock clock, Object referenceData) {
 		super(clock);
 		this.setData(referenceData);
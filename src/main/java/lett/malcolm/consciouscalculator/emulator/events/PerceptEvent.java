@@ -31,6 +31,8 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
  */
 @JsonSerialize
 public class PerceptEvent extends BaseEvent implements Event {
+	private static final long serialVersionUID = 1L;
+	
 	public PerceptEvent(Clock clock, Percept percept) {
 		super(clock);
 		this.setData(percept);
@@ -0,0 +1,42 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.events;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import lett.malcolm.consciouscalculator.emulator.interfaces.IdGenerator;
+
+/**
+ * Random UUIDs, in the same form as {@link java.util.UUID#randomUUID()}, but from
+ * {@link ThreadLocalRandom} rather than a shared {@link java.security.SecureRandom}.
+ * So generation is cheap, and doesn't contend between threads.
+ * Not suitable where guids need to be unguessable.
+ * 
+ * The default.
+ * 
+ * @author Malcolm Lett
+ */
+public class RandomIdGenerator implements IdGenerator {
+	public static final RandomIdGenerator INSTANCE = new RandomIdGenerator();
+	
+	@Override
+	public String nextId() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return Guids.randomUuidOf(random.nextLong(), random.nextLong());
+	}
+}
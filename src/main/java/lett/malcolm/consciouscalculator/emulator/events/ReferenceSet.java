@@ -0,0 +1,295 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.events;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Set of guid references, as held by events and percepts.
+ * 
+ * References are kept in a plain array, in insertion order, rather than in hash table nodes,
+ * so each costs one array slot, and the Strings are shared with the guids of whatever is referred to.
+ * Small sets, which are most of them, are searched linearly; larger ones get a hash index.
+ * 
+ * Otherwise behaves as any other {@code Set<String>}, including equals() and hashCode(),
+ * and iterates in insertion order.
+ * 
+ * Not thread-safe for modification, but may be read concurrently.
+ * 
+ * @author Malcolm Lett
+ */
+public class ReferenceSet extends AbstractSet<String> implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final String[] EMPTY = new String[0];
+	private static final int MAX_UNINDEXED_SIZE = 8;
+	
+	// each reference, in insertion order
+	private transient String[] references = EMPTY;
+	private transient int size;
+	
+	// open-addressing hash index of positions (plus one); only once larger than MAX_UNINDEXED_SIZE
+	private transient int[] index;
+	
+	private transient int modCount;
+	
+	// zero until calculated, as for String.hashCode()
+	private transient int hash;
+	
+	public ReferenceSet() {
+	}
+	
+	/**
+	 * Copies the given references.
+	 * @param references
+	 */
+	public ReferenceSet(Collection<? extends String> references) {
+		if (references instanceof ReferenceSet) {
+			ReferenceSet other = (ReferenceSet) references;
+			this.references = (other.size == 0) ? EMPTY : Arrays.copyOf(other.references, other.size);
+			this.size = other.size;
+			this.index = (other.index == null) ? null : other.index.clone();
+		}
+		else {
+			addAll(references);
+		}
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	@Override
+	public boolean contains(Object o) {
+		if (o != null && !(o instanceof String)) {
+			return false;
+		}
+		return positionOf((String) o) >= 0;
+	}
+	
+	@Override
+	public boolean add(String id) {
+		if (positionOf(id) >= 0) {
+			return false;
+		}
+		
+		if (size == references.length) {
+			references = Arrays.copyOf(references, Math.max(2, size * 2));
+		}
+		references[size++] = id;
+		
+		if (index != null && size * 2 <= index.length) {
+			insertIntoIndex(size - 1);
+		}
+		else if (size > MAX_UNINDEXED_SIZE) {
+			rebuildIndex();
+		}
+		modified();
+		return true;
+	}
+	
+	@Override
+	public boolean remove(Object o) {
+		if (o != null && !(o instanceof String)) {
+			return false;
+		}
+		int position = positionOf((String) o);
+		if (position < 0) {
+			return false;
+		}
+		removeAt(position);
+		return true;
+	}
+	
+	@Override
+	public void clear() {
+		references = EMPTY;
+		size = 0;
+		index = null;
+		modified();
+	}
+	
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+			private int next = 0;
+			private int last = -1;
+			private int expectedModCount = modCount;
+			
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+			
+			@Override
+			public String next() {
+				if (modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+				if (next >= size) {
+					throw new NoSuchElementException();
+				}
+				last = next++;
+				return references[last];
+			}
+			
+			@Override
+			public void remove() {
+				if (last < 0) {
+					throw new IllegalStateException();
+				}
+				if (modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+				removeAt(last);
+				next = last;
+				last = -1;
+				expectedModCount = modCount;
+			}
+		};
+	}
+	
+	/**
+	 * Compares without iterators, when given another {@link ReferenceSet}.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		else if (o instanceof ReferenceSet) {
+			ReferenceSet other = (ReferenceSet) o;
+			if (other.size != this.size) {
+				return false;
+			}
+			for (int i = 0; i < size; i++) {
+				if (other.positionOf(references[i]) < 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return super.equals(o);
+	}
+	
+	/**
+	 * Same as for a set of the Strings, so cached until next modified.
+	 */
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = super.hashCode();
+			hash = h;
+		}
+		return h;
+	}
+	
+	/**
+	 * Deep clone.
+	 */
+	@Override
+	public ReferenceSet clone() {
+		return new ReferenceSet(this);
+	}
+	
+	private int positionOf(String id) {
+		if (index == null) {
+			for (int i = 0; i < size; i++) {
+				if (Objects.equals(references[i], id)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		
+		int mask = index.length - 1;
+		for (int slot = hash(id) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+			int position = index[slot] - 1;
+			if (Objects.equals(references[position], id)) {
+				return position;
+			}
+		}
+		return -1;
+	}
+	
+	private void removeAt(int position) {
+		System.arraycopy(references, position + 1, references, position, size - position - 1);
+		references[--size] = null;
+		
+		// positions have shifted, so index starts over
+		index = null;
+		if (size > MAX_UNINDEXED_SIZE) {
+			rebuildIndex();
+		}
+		modified();
+	}
+	
+	private void rebuildIndex() {
+		index = new int[Integer.highestOneBit(size * 4 - 1)];
+		for (int i = 0; i < size; i++) {
+			insertIntoIndex(i);
+		}
+	}
+	
+	private void insertIntoIndex(int position) {
+		int mask = index.length - 1;
+		int slot = hash(references[position]) & mask;
+		while (index[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		index[slot] = position + 1;
+	}
+	
+	private void modified() {
+		modCount++;
+		hash = 0;
+	}
+	
+	private static int hash(String id) {
+		int h = (id == null) ? 0 : id.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			out.writeObject(references[i]);
+		}
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		references = EMPTY;
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			add((String) in.readObject());
+		}
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.events;
+
+import java.util.Random;
+
+import lett.malcolm.consciouscalculator.emulator.interfaces.IdGenerator;
+
+/**
+ * Random UUIDs, in the same form as {@link java.util.UUID#randomUUID()}, but always
+ * the same sequence for the same seed, for reproducible runs.
+ * 
+ * Thread-safe, but only deterministic when guids are generated in a deterministic order,
+ * ie: when processors don't run in parallel.
+ * 
+ * @author Malcolm Lett
+ */
+public class SeededIdGenerator implements IdGenerator {
+	private final Random random;
+	
+	public SeededIdGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+	
+	@Override
+	public synchronized String nextId() {
+		return Guids.randomUuidOf(random.nextLong(), random.nextLong());
+	}
+}
@@ -29,6 +29,8 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
  * @author Malcolm Lett
  */
 public class StuckThoughtEvent extends BaseEvent implements Event {
+	private static final long serialVersionUID = 1L;
+	
 	public StuckThoughtEvent(Clock clock, String latestEventGuid) {
 		super(clock);
 		this.references().add(latestEventGuid);
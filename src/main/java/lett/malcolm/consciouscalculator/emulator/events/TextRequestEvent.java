@@ -29,6 +29,8 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
  * @author Malcolm Lett
  */
 public class TextRequestEvent extends BaseEvent implements Event {
+	private static final long serialVersionUID = 1L;
+	
 	public TextRequestEvent(Clock clock, String text) {
 		super(clock);
 		this.setData(text);
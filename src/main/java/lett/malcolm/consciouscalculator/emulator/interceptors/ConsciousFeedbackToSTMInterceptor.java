@@ -19,7 +19,8 @@ package lett.malcolm.consciouscalculator.emulator.interceptors;
 
 
 import java.time.Clock;
-import java.util.Queue;
+import java.util.HashMap;
+import java.util.Map;
 
 import lett.malcolm.consciouscalculator.emulator.ConsciousFeedbacker.ConsciousState;
 import lett.malcolm.consciouscalculator.emulator.ShortTermMemory;
@@ -28,6 +29,7 @@ import lett.malcolm.consciouscalculator.emulator.events.MemoryEvent;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
 import lett.malcolm.consciouscalculator.emulator.interfaces.InputDesignator;
 import lett.malcolm.consciouscalculator.emulator.interfaces.InputInterceptor;
+import lett.malcolm.consciouscalculator.emulator.interfaces.InputView;
 
 /**
  * Special purpose interceptor that detects each new event coming from conscious feedback,
@@ -69,14 +71,50 @@ public class ConsciousFeedbackToSTMInterceptor implements InputInterceptor {
 	public InputDesignator inputDesignator() {
 		return InputDesignator.CONSCIOUS_FEEDBACK;
 	}
+	
+	@Override
+	public void reset() {
+		first = true;
+		prevState = null;
+	}
 
+	@Override
+	public Object captureState() {
+		Map<String, Object> state = new HashMap<>();
+		state.put("first", first);
+		state.put("prevTop", (prevState == null || prevState.getTop() == null) ? null : prevState.getTop().clone());
+		return state;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public void restoreState(Object state) {
+		Map<String, Object> map = (Map<String, Object>) state;
+		first = (Boolean) map.get("first");
+		Event prevTop = (Event) map.get("prevTop");
+		if (prevTop != null) {
+			prevTop.setClock(clock);
+		}
+		prevState = first ? null : ConsciousState.of(prevTop);
+	}
+	
+	/**
+	 * Only stores states that differ from the previous one, so repeated states are ignored.
+	 */
+	@Override
+	public boolean isQuiescent() {
+		return !first;
+	}
+	
 	/**
 	 * Doesn't currently return the intercepted event.
 	 * TODO re-assess this
 	 */
 	@Override
-	public Event intercept(Queue<Object> stream) {
-		for (ConsciousState state: castStream(stream)) {
+	public Event intercept(InputView<Object> stream) {
+		InputView<ConsciousState> states = castStream(stream);
+		for (int i = 0; i < states.size(); i++) {
+			ConsciousState state = states.get(i);
 			if (first || !isSameState(prevState, state)) {
 				Event event = convertToEvent(state);
 				if (event != null) {
@@ -126,8 +164,8 @@ public class ConsciousFeedbackToSTMInterceptor implements InputInterceptor {
 	}
 	
 	@SuppressWarnings("unchecked")
-	private Queue<ConsciousState> castStream(Queue<?> stream) {
-		return (Queue<ConsciousState>) (Object) stream;
+	private InputView<ConsciousState> castStream(InputView<?> stream) {
+		return (InputView<ConsciousState>) (Object) stream;
 	}
 
 }
@@ -19,12 +19,12 @@ package lett.malcolm.consciouscalculator.emulator.interceptors;
 
 
 import java.time.Clock;
-import java.util.Queue;
 
 import lett.malcolm.consciouscalculator.emulator.events.TextRequestEvent;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
 import lett.malcolm.consciouscalculator.emulator.interfaces.InputDesignator;
 import lett.malcolm.consciouscalculator.emulator.interfaces.InputInterceptor;
+import lett.malcolm.consciouscalculator.emulator.interfaces.InputView;
 
 /**
  * Recognises that a request has been issued via the command input stream.
@@ -32,24 +32,49 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.InputInterceptor;
  * @author Malcolm Lett
  */
 public class RequestCommandInterceptor implements InputInterceptor {
+	public static final double DEFAULT_STRENGTH = 0.5;
+	
 	private Clock clock;
+	private final double strength;
 	
 	public RequestCommandInterceptor(Clock clock) {
+		this(clock, DEFAULT_STRENGTH);
+	}
+	
+	/**
+	 * @param clock
+	 * @param strength strength of the events created for commands
+	 */
+	public RequestCommandInterceptor(Clock clock, double strength) {
 		this.clock = clock;
+		this.strength = strength;
 	}
 	
 	@Override
 	public InputDesignator inputDesignator() {
 		return InputDesignator.COMMAND;
 	}
+	
+	@Override
+	public void reset() {
+		// stateless
+	}
+	
+	/**
+	 * Stateless, so repeated input gives the same outcome as last tick.
+	 */
+	@Override
+	public boolean isQuiescent() {
+		return true;
+	}
 
 	@Override
-	public Event intercept(Queue<Object> stream) {
-		for (Object obj: stream) {
-			String data = (String) obj;
+	public Event intercept(InputView<Object> stream) {
+		for (int i = 0; i < stream.size(); i++) {
+			String data = (String) stream.get(i);
 			
 			Event event = new TextRequestEvent(clock, data);
-			event.setStrength(0.5);
+			event.setStrength(strength);
 			return event;
 		}
 		return null;
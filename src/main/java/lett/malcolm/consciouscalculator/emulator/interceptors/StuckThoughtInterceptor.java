@@ -19,10 +19,13 @@ package lett.malcolm.consciouscalculator.emulator.interceptors;
 
 
 import java.time.Clock;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
+import java.util.Map;
 
 import lett.malcolm.consciouscalculator.emulator.ConsciousFeedbacker.ConsciousState;
 import lett.malcolm.consciouscalculator.emulator.events.DataRules;
@@ -30,6 +33,7 @@ import lett.malcolm.consciouscalculator.emulator.events.StuckThoughtEvent;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
 import lett.malcolm.consciouscalculator.emulator.interfaces.InputDesignator;
 import lett.malcolm.consciouscalculator.emulator.interfaces.InputInterceptor;
+import lett.malcolm.consciouscalculator.emulator.interfaces.InputView;
 
 /**
  * Detects when there are active thoughts but that are going nowhere,
@@ -45,23 +49,73 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.InputInterceptor;
  */
 public class StuckThoughtInterceptor implements InputInterceptor {
 	// including incoming state
-	private static final int THRESHOLD_TICK_COUNT = 3;
+	public static final int DEFAULT_THRESHOLD_TICK_COUNT = 3;
+	public static final double DEFAULT_STRENGTH = 0.6;
 	
 	private Clock clock;
+	private final int thresholdTickCount;
+	private final double strength;
 	
 	// state
 	private Deque<ConsciousState> lastFewTicks = new LinkedList<>();
 	private Event lastStuckEvent = null;
 	
 	public StuckThoughtInterceptor(Clock clock) {
+		this(clock, DEFAULT_THRESHOLD_TICK_COUNT, DEFAULT_STRENGTH);
+	}
+	
+	/**
+	 * @param clock
+	 * @param thresholdTickCount number of ticks with the same conscious state, including the current, before raising a stuck thought
+	 * @param strength strength of stuck thought events
+	 */
+	public StuckThoughtInterceptor(Clock clock, int thresholdTickCount, double strength) {
 		this.clock = clock;
+		this.thresholdTickCount = thresholdTickCount;
+		this.strength = strength;
 	}
 	
 	@Override
 	public InputDesignator inputDesignator() {
 		return InputDesignator.CONSCIOUS_FEEDBACK;
 	}
+	
+	@Override
+	public void reset() {
+		lastFewTicks.clear();
+		lastStuckEvent = null;
+	}
 
+	@Override
+	public Object captureState() {
+		List<Event> tops = new ArrayList<>();
+		for (ConsciousState state: lastFewTicks) {
+			tops.add(state.getTop() == null ? null : state.getTop().clone());
+		}
+		
+		Map<String, Object> state = new HashMap<>();
+		state.put("lastFewTicks", tops);
+		state.put("lastStuckEvent", lastStuckEvent == null ? null : lastStuckEvent.clone());
+		return state;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public void restoreState(Object state) {
+		Map<String, Object> map = (Map<String, Object>) state;
+		lastFewTicks.clear();
+		for (Event top: (List<Event>) map.get("lastFewTicks")) {
+			if (top != null) {
+				top.setClock(clock);
+			}
+			lastFewTicks.offer(ConsciousState.of(top));
+		}
+		lastStuckEvent = (Event) map.get("lastStuckEvent");
+		if (lastStuckEvent != null) {
+			lastStuckEvent.setClock(clock);
+		}
+	}
+	
 	/**
 	 * Assumes each invocation to this method represents a 'tick',
 	 * and measures time by the number of such ticks.
@@ -69,22 +123,21 @@ public class StuckThoughtInterceptor implements InputInterceptor {
 	 * @return
 	 */
 	@Override
-	public Event intercept(Queue<Object> stream) {
+	public Event intercept(InputView<Object> stream) {
 		try {
-			for (ConsciousState state: castStream(stream)) {
+			InputView<ConsciousState> states = castStream(stream);
+			for (int i = 0; i < states.size(); i++) {
+				ConsciousState state = states.get(i);
 				lastFewTicks.offer(state);
 				
 				if (state.getTop() != null && isLastFewUnchanged()) {
 					// don't trigger when top event is a StuckThoughtEvent itself,
 					// or when it's the same stuck event as already flagged
-					if (!(state.getTop() instanceof StuckThoughtEvent)) {
+					if (!(state.getTop() instanceof StuckThoughtEvent) && canEmit(state.getTop().guid())) {
 						Event event = new StuckThoughtEvent(clock, state.getTop().guid());
-						event.setStrength(0.6);
-						
-						if (canEmit(event)) {
-							lastStuckEvent = event;
-							return event;
-						}
+						event.setStrength(strength);
+						lastStuckEvent = event;
+						return event;
 					}
 				}
 			}
@@ -95,19 +148,37 @@ public class StuckThoughtInterceptor implements InputInterceptor {
 	}
 	
 	/**
-	 * Emits the supplied event to the target collection, but only if it hasn't already been
-	 * previously emitted to working memory.
+	 * Repeated states eventually trigger a {@link StuckThoughtEvent},
+	 * unless there's nothing to be stuck on, or it's already been flagged.
+	 */
+	@Override
+	public boolean isQuiescent() {
+		ConsciousState state = lastFewTicks.peekLast();
+		if (state == null) {
+			return false;
+		}
+		if (state.getTop() == null || state.getTop() instanceof StuckThoughtEvent) {
+			return true;
+		}
+		return !canEmit(state.getTop().guid());
+	}
+	
+	/**
+	 * Whether a {@link StuckThoughtEvent} for the given top event may be emitted,
+	 * ie: one hasn't already been previously emitted to working memory.
+	 * Checked without creating the event, so that checks don't use up guids.
 	 * 
 	 * We do NOT want to allow re-emits once a previous StuckThoughtEvent is handled,
 	 * so we don't care whether the actual event in WM has been handled or not.
 	 * (Which we probably couldn't detect anyway, due to cloning, and we shouldn't even if we could)
-	 * @param target
-	 * @param event
-	 * @return true if emitted
+	 * @param stuckOnGuid guid of the event that thought is stuck on
+	 * @return true if may be emitted
 	 */
-	private boolean canEmit(Event event) {
-		boolean alreadyEmitted = lastStuckEvent != null && 
-				lastStuckEvent.references().equals(event.references());
+	private boolean canEmit(String stuckOnGuid) {
+		// (a stuck event references just the event it's stuck on)
+		boolean alreadyEmitted = lastStuckEvent != null &&
+				lastStuckEvent.references().size() == 1 &&
+				lastStuckEvent.references().contains(stuckOnGuid);
 		
 		return !alreadyEmitted;
 	}
@@ -126,7 +197,7 @@ public class StuckThoughtInterceptor implements InputInterceptor {
 				break;
 			}
 			
-			if (count >= THRESHOLD_TICK_COUNT) {
+			if (count >= thresholdTickCount) {
 				return true;
 			}
 			prev = it;
@@ -162,13 +233,13 @@ public class StuckThoughtInterceptor implements InputInterceptor {
 	}
 	
 	private void cleanup() {
-		while (lastFewTicks.size() > THRESHOLD_TICK_COUNT) {
+		while (lastFewTicks.size() > thresholdTickCount) {
 			lastFewTicks.poll();
 		}
 	}
 
 	@SuppressWarnings("unchecked")
-	private Queue<ConsciousState> castStream(Queue<?> stream) {
-		return (Queue<ConsciousState>) (Object) stream;
+	private InputView<ConsciousState> castStream(InputView<?> stream) {
+		return (InputView<ConsciousState>) (Object) stream;
 	}
 }
@@ -18,10 +18,12 @@
 package lett.malcolm.consciouscalculator.emulator.interfaces;
 
 
+import java.time.Clock;
 import java.time.Instant;
 import java.util.Set;
 
 import lett.malcolm.consciouscalculator.emulator.events.DataRules;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.TickClock;
 
 /**
  * @author Malcolm Lett
@@ -38,6 +40,12 @@ public interface Event extends Cloneable {
 	
 	public Instant timestamp();
 	
+	/**
+	 * Tick of the emulator's {@link TickClock} that the event was created in,
+	 * or zero if not created under a tick clock.
+	 */
+	public long tick();
+	
 	public double strength();
 	
 	/**
@@ -70,8 +78,16 @@ public interface Event extends Cloneable {
 
 	public void setTimestamp(Instant timestamp);
 
+	public void setTick(long tick);
+
 	public void setGuid(String guid);
 
+	/**
+	 * Clock that the event's age is measured against.
+	 * Not serialized with the event, so must be re-attached once deserialized.
+	 */
+	public void setClock(Clock clock);
+
 	public void setTags(Set<EventTag> tags);
 
 	/**
@@ -0,0 +1,139 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.interfaces;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import lett.malcolm.consciouscalculator.emulator.WorkingMemory;
+
+/**
+ * Describes the events that a processor is interested in:
+ * events of any of the given types, having all of the required tags, and none of the excluded tags.
+ * 
+ * Immutable. Equal interests share the same candidate set within {@link WorkingMemory}.
+ * 
+ * Example:
+ * <pre>
+ *    EventInterest.of(PerceptEvent.class).excluding(EventTag.COMPLETED, EventTag.HANDLED)
+ * </pre>
+ * 
+ * @author Malcolm Lett
+ */
+public final class EventInterest {
+	private final Set<Class<? extends Event>> types;
+	private final Set<EventTag> requiredTags;
+	private final Set<EventTag> excludedTags;
+	
+	private EventInterest(Set<Class<? extends Event>> types, Set<EventTag> requiredTags, Set<EventTag> excludedTags) {
+		this.types = Collections.unmodifiableSet(types);
+		this.requiredTags = Collections.unmodifiableSet(requiredTags);
+		this.excludedTags = Collections.unmodifiableSet(excludedTags);
+	}
+	
+	/**
+	 * @param types event types of interest, including sub-types; all events if none given
+	 * @return new interest, with no tag restrictions
+	 */
+	@SafeVarargs
+	public static EventInterest of(Class<? extends Event>... types) {
+		Set<Class<? extends Event>> typeSet = new LinkedHashSet<>();
+		for (Class<? extends Event> type: types) {
+			typeSet.add(type);
+		}
+		return new EventInterest(typeSet,
+				EnumSet.noneOf(EventTag.class), EnumSet.noneOf(EventTag.class));
+	}
+	
+	/**
+	 * @param tags tags that events must all have
+	 * @return new interest, with the additional restriction
+	 */
+	public EventInterest requiring(EventTag... tags) {
+		Set<EventTag> required = EnumSet.noneOf(EventTag.class);
+		required.addAll(requiredTags);
+		required.addAll(Arrays.asList(tags));
+		return new EventInterest(types, required, excludedTags);
+	}
+	
+	/**
+	 * @param tags tags that events must not have
+	 * @return new interest, with the additional restriction
+	 */
+	public EventInterest excluding(EventTag... tags) {
+		Set<EventTag> excluded = EnumSet.noneOf(EventTag.class);
+		excluded.addAll(excludedTags);
+		excluded.addAll(Arrays.asList(tags));
+		return new EventInterest(types, requiredTags, excluded);
+	}
+	
+	public boolean matches(Event event) {
+		if (!types.isEmpty() && types.stream().noneMatch(t -> t.isInstance(event))) {
+			return false;
+		}
+		if (!event.tags().containsAll(requiredTags)) {
+			return false;
+		}
+		for (EventTag tag: excludedTags) {
+			if (event.tags().contains(tag)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	public Set<Class<? extends Event>> types() {
+		return types;
+	}
+	
+	public Set<EventTag> requiredTags() {
+		return requiredTags;
+	}
+	
+	public Set<EventTag> excludedTags() {
+		return excludedTags;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(types, requiredTags, excludedTags);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof EventInterest)) {
+			return false;
+		}
+		EventInterest other = (EventInterest) obj;
+		return types.equals(other.types) &&
+				requiredTags.equals(other.requiredTags) &&
+				excludedTags.equals(other.excludedTags);
+	}
+
+	@Override
+	public String toString() {
+		return "EventInterest{types=" + types + ",required=" + requiredTags + ",excluded=" + excludedTags + "}";
+	}
+}
@@ -0,0 +1,40 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.interfaces;
+
+import lett.malcolm.consciouscalculator.emulator.events.Guids;
+
+/**
+ * Generates guids for new events and percepts.
+ * 
+ * Guids must contain a '-', and be at least 5 characters, to be distinguishable from
+ * fact names and to be shortened for display by {@link lett.malcolm.consciouscalculator.utils.Events#toShortGuid(String)}.
+ * They only need to be unique amongst the events that can meet, ie: within an emulator and its restored state.
+ * 
+ * Must be thread-safe, as processors may run in parallel.
+ * 
+ * @author Malcolm Lett
+ * @see Guids
+ */
+@FunctionalInterface
+public interface IdGenerator {
+	/**
+	 * @return new guid
+	 */
+	public String nextId();
+}
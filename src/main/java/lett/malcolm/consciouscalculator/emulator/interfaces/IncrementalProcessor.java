@@ -0,0 +1,44 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.interfaces;
+
+
+import java.util.List;
+
+import lett.malcolm.consciouscalculator.emulator.WorkingMemory;
+
+/**
+ * Marks processors that can be evaluated incrementally, against only the events
+ * that have changed since they last declined everything.
+ * 
+ * Contract for implementations:
+ * - iterate {@link WorkingMemory#pending(IncrementalProcessor)} instead of the full candidate set,
+ * - decide whether to accept an event based only on the event itself, so that once declined,
+ *   an event needn't be checked again unless it is replaced,
+ * - must not depend on the intercepted events passed to {@link #process(List, WorkingMemory)}.
+ * 
+ * Processors are not called at all on ticks where they have nothing pending.
+ * When a processor returns nothing, all its pending events are treated as declined.
+ * When it returns something, they all remain pending, because it may have stopped early,
+ * and its output might not be chosen by the {@code AttentionAttenuator}.
+ * 
+ * @author Malcolm Lett
+ */
+public interface IncrementalProcessor extends InterestAwareProcessor {
+
+}
@@ -18,8 +18,6 @@
 package lett.malcolm.consciouscalculator.emulator.interfaces;
 
 
-import java.util.Queue;
-
 /**
  * Input Interceptors primarily act incoming inputs.
  * They identify significant events from what would otherwise be a bland stream of meaningless data.
@@ -43,9 +41,47 @@ public interface InputInterceptor {
 	
 	/**
 	 * Extract meaningful events, if it understands the incoming data.
-	 * @param senseDesignator which sense this data came from
-	 * @param stream stream of data
+	 * @param stream data received this tick, shared with other interceptors so must not be held onto
 	 * @return new event, or nothing
 	 */
-	public Event intercept(Queue<Object> stream);
+	public Event intercept(InputView<Object> stream);
+	
+	/**
+	 * Called after a tick in which nothing changed.
+	 * Indicates whether receiving the same input as last tick, over and over, would never
+	 * cause this interceptor to emit an event.
+	 * This lets the emulator stop without running further idle ticks.
+	 * 
+	 * Defaults to false, which is always safe, but never lets the emulator stop early.
+	 * @return true if nothing more would come from this interceptor
+	 */
+	public default boolean isQuiescent() {
+		return false;
+	}
+	
+	/**
+	 * Captures any state held, so that the emulator can be hibernated or checkpointed.
+	 * The result must be made of {@link lett.malcolm.consciouscalculator.emulator.events.DataRules} data,
+	 * which may also contain {@link Event}s, and must not share anything mutable with the interceptor.
+	 * 
+	 * Defaults to null, for stateless interceptors.
+	 * @return state, or null if none
+	 */
+	public default Object captureState() {
+		return null;
+	}
+	
+	/**
+	 * Restores state previously returned by {@link #captureState()} of the same type of interceptor,
+	 * replacing any state held.
+	 * @param state non-null state
+	 */
+	public default void restoreState(Object state) {
+		// stateless
+	}
+	
+	/**
+	 * Discards any state held, returning the interceptor to as it was when constructed.
+	 */
+	public void reset();
 }
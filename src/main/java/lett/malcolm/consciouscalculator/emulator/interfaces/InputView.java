@@ -0,0 +1,49 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.interfaces;
+
+/**
+ * Read-only view over the data received on one input during the current tick, oldest first.
+ * 
+ * The same view is shared by all interceptors bound to that input, so it is never consumed
+ * by reading it, and cannot be modified.
+ * It is only valid for the duration of the call it was passed to; interceptors that need to
+ * remember data must copy the individual items.
+ * 
+ * Prefer indexed access over iteration, as it doesn't allocate.
+ * 
+ * @author Malcolm Lett
+ * @param <E> item type
+ */
+public interface InputView<E> extends Iterable<E> {
+	/**
+	 * @return number of items received this tick
+	 */
+	public int size();
+	
+	/**
+	 * @param index
+	 * @return item at the given index
+	 * @throws IndexOutOfBoundsException
+	 */
+	public E get(int index);
+	
+	public default boolean isEmpty() {
+		return size() == 0;
+	}
+}
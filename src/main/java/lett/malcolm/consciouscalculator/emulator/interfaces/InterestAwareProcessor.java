@@ -0,0 +1,39 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.interfaces;
+
+
+import lett.malcolm.consciouscalculator.emulator.WorkingMemory;
+
+/**
+ * Marks processors that only care about a subset of the events in Working Memory.
+ * 
+ * Working Memory maintains a candidate set for each declared interest, so that such processors
+ * can iterate {@link WorkingMemory#candidates(EventInterest)} instead of {@link WorkingMemory#all()},
+ * and only pay for events relevant to them.
+ * 
+ * @author Malcolm Lett
+ */
+public interface InterestAwareProcessor extends Processor {
+
+	/**
+	 * Must always return the same (or an equal) interest.
+	 * @return the events of interest to this processor
+	 */
+	public EventInterest interest();
+}
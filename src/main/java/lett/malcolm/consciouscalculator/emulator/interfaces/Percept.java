@@ -18,17 +18,18 @@
 package lett.malcolm.consciouscalculator.emulator.interfaces;
 
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
-import java.util.UUID;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonCreator;
 
 import lett.malcolm.consciouscalculator.emulator.events.DataRules;
+import lett.malcolm.consciouscalculator.emulator.events.Guids;
+import lett.malcolm.consciouscalculator.emulator.events.ReferenceSet;
 import lett.malcolm.consciouscalculator.utils.Events;
 
 /**
@@ -40,7 +41,9 @@ import lett.malcolm.consciouscalculator.utils.Events;
  * @author Malcolm Lett
  */
 @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
-public class Percept {
+public class Percept implements Serializable {
+	private static final long serialVersionUID = 1L;
+	
 	private final String guid;
 	private final Set<String> references;
 	private final Object data;
@@ -64,11 +67,11 @@ public class Percept {
 	public Percept(String guid, Set<String> references, Object data) {
 		DataRules.assertValid(data);
 		if (references == null) {
-			references = new HashSet<>();
+			references = Collections.emptySet();
 		}
 		
 		this.guid = guid;
-		this.references = Collections.unmodifiableSet(references);
+		this.references = Collections.unmodifiableSet(new ReferenceSet(references));
 		this.data = data;
 	}
 
@@ -83,7 +86,7 @@ public class Percept {
 	 * @param data
 	 */
 	public Percept(String reference, Object data) {
-		this(UUID.randomUUID().toString(), Collections.singleton(reference), data);
+		this(Guids.next(), Collections.singleton(reference), data);
 	}
 
 	/**
@@ -91,7 +94,7 @@ public class Percept {
 	 */
 	public Percept clone() {
 		return new Percept(guid,
-				new HashSet<>(this.references),
+				this.references,
 				DataRules.clone(this.data));
 	}
 	
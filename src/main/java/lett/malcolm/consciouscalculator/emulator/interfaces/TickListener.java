@@ -0,0 +1,33 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.interfaces;
+
+/**
+ * Notified by the emulator's control loop as it runs, on the thread running it.
+ * 
+ * @author Malcolm Lett
+ */
+public interface TickListener {
+	/**
+	 * Called at the end of each tick, after conscious feedback has been written
+	 * and strengths degraded, but before the control loop decides whether to run another tick.
+	 * Commands offered now are seen by the next tick.
+	 * @param tick index of the tick within the current run, from zero
+	 */
+	public void afterTick(int tick);
+}
@@ -0,0 +1,65 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.journal;
+
+import java.util.Collections;
+import java.util.List;
+
+import lett.malcolm.consciouscalculator.emulator.lowlevel.StopReason;
+
+/**
+ * All recorded ticks of a single run of the control loop.
+ * 
+ * @author Malcolm Lett
+ */
+public class JournalRun {
+	private final int index;
+	private final List<TickRecord> ticks;
+	private final StopReason stopReason;
+	
+	/**
+	 * @param index index of the run within the journal, from zero
+	 * @param ticks ticks in order
+	 * @param stopReason why the run stopped, or null if the journal ended first
+	 */
+	public JournalRun(int index, List<TickRecord> ticks, StopReason stopReason) {
+		this.index = index;
+		this.ticks = Collections.unmodifiableList(ticks);
+		this.stopReason = stopReason;
+	}
+	
+	public int index() {
+		return index;
+	}
+	
+	public List<TickRecord> ticks() {
+		return ticks;
+	}
+	
+	/**
+	 * @return why the run stopped, or null if the journal ended part way through the run
+	 */
+	public StopReason stopReason() {
+		return stopReason;
+	}
+	
+	@Override
+	public String toString() {
+		return "JournalRun{" + index + ": " + ticks.size() + " ticks, " + stopReason + "}";
+	}
+}
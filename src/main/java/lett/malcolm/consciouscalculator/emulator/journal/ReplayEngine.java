@@ -0,0 +1,140 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.journal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import lett.malcolm.consciouscalculator.emulator.CommandResult;
+import lett.malcolm.consciouscalculator.emulator.Emulator;
+import lett.malcolm.consciouscalculator.emulator.EmulatorSnapshot;
+import lett.malcolm.consciouscalculator.emulator.events.SeededIdGenerator;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.ManualClock;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.TickScheduler;
+
+/**
+ * Re-runs a journal, recorded by a {@link TickJournal}, against a fresh {@link Emulator}.
+ * 
+ * Each recorded command is offered just before the tick that originally took it, and the
+ * clock is set to the recorded time of each tick. Guids come from a seeded generator, so replaying
+ * the same journal with the same seed produces the same events, with the same guids, every time.
+ * That makes it possible to compare working memory tick by tick between builds.
+ * 
+ * Runs that were originally stopped early are stopped after the same number of ticks.
+ * Replays run sequentially on the calling thread.
+ * 
+ * @author Malcolm Lett
+ */
+public class ReplayEngine {
+	public static final long DEFAULT_SEED = 0;
+	
+	private final long seed;
+	private BiConsumer<TickRecord, EmulatorSnapshot> tickObserver;
+	
+	public ReplayEngine() {
+		this(DEFAULT_SEED);
+	}
+	
+	/**
+	 * @param seed seed for guid generation
+	 */
+	public ReplayEngine(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * @param tickObserver given the recorded inputs (null for ticks beyond those recorded)
+	 *        and the state of memory at the end of every replayed tick, or null for none
+	 */
+	public void setTickObserver(BiConsumer<TickRecord, EmulatorSnapshot> tickObserver) {
+		this.tickObserver = tickObserver;
+	}
+	
+	/**
+	 * Replays the whole journal.
+	 * @param journal stream positioned at the start of a journal, not closed
+	 * @return outcome of each run
+	 * @throws IOException if the journal can't be read
+	 */
+	public ReplayResult replay(InputStream journal) throws IOException {
+		TickJournalReader reader = new TickJournalReader(journal);
+		ManualClock clock = new ManualClock(Instant.EPOCH);
+		Emulator emulator = new Emulator(clock);
+		emulator.setIdGenerator(new SeededIdGenerator(seed));
+		
+		List<CommandResult> results = new ArrayList<>();
+		List<Integer> divergentRuns = new ArrayList<>();
+		JournalRun run;
+		while ((run = reader.readRun()) != null) {
+			CommandResult result = replay(emulator, clock, run);
+			results.add(result);
+			if (run.stopReason() != null && !stoppedAsRecorded(result, run)) {
+				divergentRuns.add(run.index());
+			}
+		}
+		return new ReplayResult(results, divergentRuns);
+	}
+	
+	private CommandResult replay(Emulator emulator, ManualClock clock, JournalRun run) {
+		List<TickRecord> ticks = run.ticks();
+		if (run.stopReason() != null && !run.stopReason().isComplete()) {
+			// stopped early, most likely by something that doesn't replay, such as a deadline
+			emulator.setTickScheduler(new TickScheduler(ticks.size(), 0, TimeUnit.MILLISECONDS, 0));
+		}
+		else {
+			emulator.setTickScheduler(new TickScheduler());
+		}
+		
+		emulator.setTickListener(tick -> {
+			if (tickObserver != null) {
+				tickObserver.accept(tick < ticks.size() ? ticks.get(tick) : null, emulator.snapshot());
+			}
+			if (tick + 1 < ticks.size()) {
+				prepare(emulator, clock, ticks.get(tick + 1));
+			}
+		});
+		try {
+			if (!ticks.isEmpty()) {
+				prepare(emulator, clock, ticks.get(0));
+			}
+			return emulator.execute();
+		} finally {
+			emulator.setTickListener(null);
+		}
+	}
+	
+	private static boolean stoppedAsRecorded(CommandResult result, JournalRun run) {
+		if (result.ticks() != run.ticks().size()) {
+			return false;
+		}
+		// early stops are enforced with a tick budget, whatever the original reason
+		return run.stopReason().isComplete() ? result.stopReason() == run.stopReason() : !result.isComplete();
+	}
+	
+	private static void prepare(Emulator emulator, ManualClock clock, TickRecord tick) {
+		clock.set(tick.instant());
+		for (String command: tick.commands()) {
+			emulator.offerCommand(command);
+		}
+	}
+}
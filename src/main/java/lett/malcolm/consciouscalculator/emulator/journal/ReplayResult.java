@@ -0,0 +1,72 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.journal;
+
+import java.util.Collections;
+import java.util.List;
+
+import lett.malcolm.consciouscalculator.emulator.CommandResult;
+
+/**
+ * Outcome of replaying a journal.
+ * 
+ * @author Malcolm Lett
+ */
+public class ReplayResult {
+	private final List<CommandResult> results;
+	private final List<Integer> divergentRuns;
+	
+	public ReplayResult(List<CommandResult> results, List<Integer> divergentRuns) {
+		this.results = Collections.unmodifiableList(results);
+		this.divergentRuns = Collections.unmodifiableList(divergentRuns);
+	}
+	
+	/**
+	 * @return result of each replayed run, in order
+	 */
+	public List<CommandResult> results() {
+		return results;
+	}
+	
+	/**
+	 * @return indices of runs that didn't stop after the same number of ticks, for the same reason, as recorded
+	 */
+	public List<Integer> divergentRuns() {
+		return divergentRuns;
+	}
+	
+	/**
+	 * @return whether every run stopped as recorded
+	 */
+	public boolean isFaithful() {
+		return divergentRuns.isEmpty();
+	}
+	
+	public int tickCount() {
+		int ticks = 0;
+		for (CommandResult result: results) {
+			ticks += result.ticks();
+		}
+		return ticks;
+	}
+	
+	@Override
+	public String toString() {
+		return "ReplayResult{" + results.size() + " runs, " + tickCount() + " ticks, divergent=" + divergentRuns + "}";
+	}
+}
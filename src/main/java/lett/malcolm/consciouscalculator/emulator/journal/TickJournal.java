@@ -0,0 +1,131 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.journal;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+
+import lett.malcolm.consciouscalculator.emulator.Emulator;
+import lett.malcolm.consciouscalculator.emulator.events.DataCodec;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.StopReason;
+
+/**
+ * Append-only binary journal of the inputs to every tick of an {@link Emulator},
+ * so that its runs can be replayed later by a {@link ReplayEngine}.
+ * 
+ * Format: magic number and format version, followed by a record per tick,
+ * and a record at the end of each run. Strings, such as guids, are only written in full once.
+ * Flushed at the end of each run, so a journal cut short only loses the run in progress.
+ * 
+ * Read with a {@link TickJournalReader}.
+ * 
+ * @author Malcolm Lett
+ */
+public class TickJournal implements Closeable, Flushable {
+	static final int MAGIC = 0x4343544A; // "CCTJ"
+	static final int VERSION = 1;
+	
+	// record types
+	static final int TICK = 1;
+	static final int RUN_END = 2;
+	
+	private final OutputStream out;
+	private final DataCodec.Writer writer;
+	private long runCount = 0;
+	private long tickCount = 0;
+	
+	/**
+	 * Writes the journal header straight away.
+	 * @param out stream to append to, preferably buffered, and closed with the journal
+	 * @throws IOException
+	 */
+	public TickJournal(OutputStream out) throws IOException {
+		this.out = out;
+		DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(MAGIC);
+		header.writeByte(VERSION);
+		this.writer = new DataCodec.Writer(out);
+	}
+	
+	/**
+	 * @param instant time the tick started
+	 * @param commands commands taken by the tick
+	 * @param feedback guids of the conscious feedback taken by the tick (null where nothing was in focus)
+	 * @param triggers number of triggers fired since the previous tick
+	 * @throws IOException
+	 */
+	public synchronized void recordTick(Instant instant, List<String> commands, List<String> feedback, int triggers) throws IOException {
+		writer.writeCount(TICK);
+		writer.writeLong(instant.getEpochSecond());
+		writer.writeCount(instant.getNano());
+		writer.writeCount(commands.size());
+		for (String command: commands) {
+			writer.writeString(command);
+		}
+		writer.writeCount(feedback.size());
+		for (String guid: feedback) {
+			writer.writeValue(guid);
+		}
+		writer.writeCount(triggers);
+		tickCount++;
+	}
+	
+	/**
+	 * Ends the current run, and flushes.
+	 * @param stopReason why the run stopped
+	 * @param ticks number of ticks run
+	 * @throws IOException
+	 */
+	public synchronized void recordRunEnd(StopReason stopReason, int ticks) throws IOException {
+		writer.writeCount(RUN_END);
+		writer.writeString(stopReason.name());
+		writer.writeCount(ticks);
+		writer.flush();
+		runCount++;
+	}
+	
+	/**
+	 * @return number of runs ended so far
+	 */
+	public synchronized long runCount() {
+		return runCount;
+	}
+	
+	/**
+	 * @return number of ticks recorded so far
+	 */
+	public synchronized long tickCount() {
+		return tickCount;
+	}
+	
+	@Override
+	public synchronized void flush() throws IOException {
+		writer.flush();
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		writer.flush();
+		out.close();
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.journal;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import lett.malcolm.consciouscalculator.emulator.events.DataCodec;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.StopReason;
+
+/**
+ * Reads a journal written by a {@link TickJournal}, one run at a time.
+ * Not thread-safe.
+ * 
+ * @author Malcolm Lett
+ */
+public class TickJournalReader implements Closeable {
+	private final PushbackInputStream in;
+	private final DataCodec.Reader reader;
+	private int runCount = 0;
+	
+	/**
+	 * Reads the journal header straight away.
+	 * @param in stream to read from, preferably buffered, and closed with the reader
+	 * @throws IOException if not a journal, or an unsupported version
+	 */
+	public TickJournalReader(InputStream in) throws IOException {
+		this.in = new PushbackInputStream(in);
+		DataInputStream header = new DataInputStream(this.in);
+		if (header.readInt() != TickJournal.MAGIC) {
+			throw new IOException("Not a tick journal");
+		}
+		int version = header.readUnsignedByte();
+		if (version != TickJournal.VERSION) {
+			throw new IOException("Unsupported tick journal version: " + version);
+		}
+		// journals don't contain events, so the clock is never used
+		this.reader = new DataCodec.Reader(this.in, Clock.systemUTC());
+	}
+	
+	/**
+	 * @return next run, or null if there are no more
+	 * @throws IOException if malformed
+	 */
+	public JournalRun readRun() throws IOException {
+		if (atEnd()) {
+			return null;
+		}
+		
+		int run = runCount++;
+		List<TickRecord> ticks = new ArrayList<>();
+		while (!atEnd()) {
+			int type = reader.readCount();
+			if (type == TickJournal.TICK) {
+				ticks.add(readTick(run, ticks.size()));
+			}
+			else if (type == TickJournal.RUN_END) {
+				StopReason stopReason = StopReason.valueOf(reader.readString());
+				int tickCount = reader.readCount();
+				if (tickCount != ticks.size()) {
+					throw new IOException("Run " + run + " recorded " + ticks.size() + " ticks, but ended after " + tickCount);
+				}
+				return new JournalRun(run, ticks, stopReason);
+			}
+			else {
+				throw new IOException("Unknown record type: " + type);
+			}
+		}
+		
+		// cut short
+		return new JournalRun(run, ticks, null);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+	
+	private TickRecord readTick(int run, int tick) throws IOException {
+		long seconds = reader.readLong();
+		Instant instant = Instant.ofEpochSecond(seconds, reader.readCount());
+		List<String> commands = new ArrayList<>();
+		for (int count = reader.readCount(); count > 0; count--) {
+			commands.add(reader.readString());
+		}
+		List<String> feedback = new ArrayList<>();
+		for (int count = reader.readCount(); count > 0; count--) {
+			feedback.add((String) reader.readValue());
+		}
+		int triggers = reader.readCount();
+		return new TickRecord(run, tick, instant, commands, feedback, triggers);
+	}
+	
+	private boolean atEnd() throws IOException {
+		int next = in.read();
+		if (next < 0) {
+			return true;
+		}
+		in.unread(next);
+		return false;
+	}
+}
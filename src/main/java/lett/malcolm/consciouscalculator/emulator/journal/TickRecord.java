@@ -0,0 +1,83 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.journal;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Inputs to a single tick, as recorded in a {@link TickJournal}.
+ * 
+ * @author Malcolm Lett
+ */
+public class TickRecord {
+	private final int run;
+	private final int tick;
+	private final Instant instant;
+	private final List<String> commands;
+	private final List<String> feedback;
+	private final int triggers;
+	
+	/**
+	 * @param run index of the run within the journal, from zero
+	 * @param tick index of the tick within the run, from zero
+	 * @param instant time the tick started
+	 * @param commands commands taken by the tick
+	 * @param feedback guids of the conscious feedback taken by the tick (null where nothing was in focus)
+	 * @param triggers number of triggers fired since the previous tick
+	 */
+	public TickRecord(int run, int tick, Instant instant, List<String> commands, List<String> feedback, int triggers) {
+		this.run = run;
+		this.tick = tick;
+		this.instant = instant;
+		this.commands = Collections.unmodifiableList(commands);
+		this.feedback = Collections.unmodifiableList(feedback);
+		this.triggers = triggers;
+	}
+	
+	public int run() {
+		return run;
+	}
+	
+	public int tick() {
+		return tick;
+	}
+	
+	public Instant instant() {
+		return instant;
+	}
+	
+	public List<String> commands() {
+		return commands;
+	}
+	
+	public List<String> feedback() {
+		return feedback;
+	}
+	
+	public int triggers() {
+		return triggers;
+	}
+	
+	@Override
+	public String toString() {
+		return "TickRecord{" + run + "." + tick + " @ " + instant + ", commands=" + commands +
+				", feedback=" + feedback + ", triggers=" + triggers + "}";
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.lowlevel;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Clock that only moves when told to, for replays and simulations.
+ * 
+ * Thread-safe, though normally only moved by the thread running the emulator.
+ * 
+ * @author Malcolm Lett
+ */
+public class ManualClock extends Clock {
+	private final ZoneId zone;
+	private volatile Instant instant;
+	
+	/**
+	 * In UTC.
+	 * @param instant initial instant
+	 */
+	public ManualClock(Instant instant) {
+		this(instant, ZoneOffset.UTC);
+	}
+	
+	public ManualClock(Instant instant, ZoneId zone) {
+		this.instant = instant;
+		this.zone = zone;
+	}
+	
+	public void set(Instant instant) {
+		this.instant = instant;
+	}
+	
+	public void advance(Duration duration) {
+		this.instant = instant.plus(duration);
+	}
+	
+	@Override
+	public Instant instant() {
+		return instant;
+	}
+	
+	@Override
+	public ZoneId getZone() {
+		return zone;
+	}
+	
+	/**
+	 * @return clock in the given zone, sharing nothing with this one
+	 */
+	@Override
+	public Clock withZone(ZoneId zone) {
+		return new ManualClock(instant, zone);
+	}
+}
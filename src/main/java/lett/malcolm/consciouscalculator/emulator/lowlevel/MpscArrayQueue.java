@@ -0,0 +1,178 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.lowlevel;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free, multi-producer/single-consumer queue.
+ * 
+ * Elements are held in a fixed array, with a sequence number per slot telling producers and the
+ * consumer whose turn it is, so that no nodes are allocated per element.
+ * 
+ * Any number of threads may offer concurrently.
+ * Only one thread at a time may consume, ie: poll, peek, iterate, or clear.
+ * Null elements are not permitted.
+ * 
+ * @author Malcolm Lett
+ * @param <E> element type
+ */
+public class MpscArrayQueue<E> extends AbstractQueue<E> {
+	private final int capacity;
+	private final int mask;
+	private final AtomicReferenceArray<E> elements;
+	
+	// per slot: equals position when free for a producer, position+1 when ready for the consumer
+	private final AtomicLongArray sequences;
+	
+	// next position for producers to claim
+	private final AtomicLong tail = new AtomicLong();
+	
+	// next position for the consumer to read
+	private volatile long head = 0;
+	
+	/**
+	 * @param capacity maximum number of elements, must be a power of 2
+	 */
+	public MpscArrayQueue(int capacity) {
+		if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a power of 2, got " + capacity);
+		}
+		this.capacity = capacity;
+		this.mask = capacity - 1;
+		this.elements = new AtomicReferenceArray<>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+	
+	public int capacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Adds the element, if there's room.
+	 * Safe to call from any thread.
+	 * @return false if full
+	 */
+	@Override
+	public boolean offer(E element) {
+		Objects.requireNonNull(element, "element");
+		while (true) {
+			long position = tail.get();
+			int index = index(position);
+			long sequence = sequences.get(index);
+			if (sequence == position) {
+				if (tail.compareAndSet(position, position + 1)) {
+					elements.lazySet(index, element);
+					sequences.set(index, position + 1);
+					return true;
+				}
+			}
+			else if (sequence < position) {
+				// slot still holds an element from the previous lap
+				return false;
+			}
+			// else: lost race with another producer, try again
+		}
+	}
+	
+	/**
+	 * Consumer only.
+	 * Note that an element claimed by a producer but not yet written holds up those after it.
+	 */
+	@Override
+	public E poll() {
+		long position = head;
+		int index = index(position);
+		if (sequences.get(index) != position + 1) {
+			return null;
+		}
+		E element = elements.get(index);
+		elements.lazySet(index, null);
+		head = position + 1;
+		sequences.set(index, position + capacity);
+		return element;
+	}
+	
+	/**
+	 * Consumer only.
+	 */
+	@Override
+	public E peek() {
+		long position = head;
+		int index = index(position);
+		if (sequences.get(index) != position + 1) {
+			return null;
+		}
+		return elements.get(index);
+	}
+	
+	/**
+	 * Consumer only.
+	 */
+	@Override
+	public boolean isEmpty() {
+		return peek() == null;
+	}
+	
+	/**
+	 * Approximate when producers are active, as it includes elements still being written.
+	 */
+	@Override
+	public int size() {
+		long size = tail.get() - head;
+		return (int) Math.max(0, Math.min(size, capacity));
+	}
+	
+	/**
+	 * Consumer only.
+	 * Iterates over the elements available at the time of each step, without removing them.
+	 * Doesn't support removal.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private long position = head;
+			
+			@Override
+			public boolean hasNext() {
+				return sequences.get(index(position)) == position + 1;
+			}
+			
+			@Override
+			public E next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return elements.get(index(position++));
+			}
+		};
+	}
+	
+	private int index(long position) {
+		return (int) (position & mask);
+	}
+}
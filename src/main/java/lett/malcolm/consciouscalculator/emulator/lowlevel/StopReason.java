@@ -0,0 +1,58 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.lowlevel;
+
+/**
+ * Why the control loop stopped running.
+ * 
+ * @author Malcolm Lett
+ */
+public enum StopReason {
+	/**
+	 * Ran until nothing changed for several ticks in a row.
+	 */
+	SETTLED,
+	
+	/**
+	 * Stopped as soon as nothing more could change: no inputs were waiting, conscious feedback
+	 * was unchanged, and no interceptor or processor had anything left to act on.
+	 */
+	QUIESCENT,
+	
+	/**
+	 * Stopped after running the maximum number of ticks allowed for one command.
+	 */
+	TICK_BUDGET,
+	
+	/**
+	 * Stopped because the wall-clock deadline for one command was reached.
+	 */
+	DEADLINE,
+	
+	/**
+	 * Stopped because the thread was interrupted while waiting for its next tick.
+	 */
+	INTERRUPTED;
+	
+	/**
+	 * @return whether the control loop ran to completion
+	 */
+	public boolean isComplete() {
+		return this == SETTLED || this == QUIESCENT;
+	}
+}
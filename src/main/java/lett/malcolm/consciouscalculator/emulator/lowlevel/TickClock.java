@@ -0,0 +1,112 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.lowlevel;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Logical clock that the emulator advances once per tick.
+ * 
+ * Reads the underlying wall clock only when advanced, and returns that same instant
+ * until advanced again. So all events created during a tick share a single timestamp,
+ * and creating them doesn't read the wall clock or allocate.
+ * 
+ * Thread-safe, though only advanced by the thread running the control loop.
+ * 
+ * @author Malcolm Lett
+ */
+public class TickClock extends Clock {
+	private final Clock source;
+	private volatile Tick current;
+	
+	/**
+	 * Starts at tick zero, anchored at the current time of the source.
+	 * @param source wall clock, read once per tick
+	 */
+	public TickClock(Clock source) {
+		this.source = source;
+		this.current = new Tick(0, source.instant());
+	}
+	
+	/**
+	 * @param clock
+	 * @return the clock, if already a tick clock, otherwise a new tick clock over it
+	 */
+	public static TickClock of(Clock clock) {
+		return (clock instanceof TickClock) ? (TickClock) clock : new TickClock(clock);
+	}
+	
+	/**
+	 * Moves on to the next tick, anchored at the current time of the source.
+	 */
+	public void advance() {
+		current = new Tick(current.number + 1, source.instant());
+	}
+	
+	/**
+	 * @return current tick number, zero before first advanced
+	 */
+	public long tick() {
+		return current.number;
+	}
+	
+	/**
+	 * @return instant the current tick started
+	 */
+	@Override
+	public Instant instant() {
+		return current.anchor;
+	}
+	
+	/**
+	 * @return underlying wall clock
+	 */
+	public Clock source() {
+		return source;
+	}
+	
+	@Override
+	public ZoneId getZone() {
+		return source.getZone();
+	}
+	
+	/**
+	 * @return clock in the given zone, at the current tick, but not advanced along with this one
+	 */
+	@Override
+	public Clock withZone(ZoneId zone) {
+		TickClock clock = new TickClock(source.withZone(zone));
+		clock.current = current;
+		return clock;
+	}
+	
+	/**
+	 * Tick number and anchor, updated together.
+	 */
+	private static class Tick {
+		private final long number;
+		private final Instant anchor;
+		
+		public Tick(long number, Instant anchor) {
+			this.number = number;
+			this.anchor = anchor;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.lowlevel;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits how long the control loop may run for a single command, so that processors that
+ * keep updating each other can't run the loop forever.
+ * 
+ * Limits:
+ * - tick budget: maximum number of ticks per command
+ * - deadline: maximum wall-clock time per command
+ * - rate: maximum ticks per second, with the loop waiting between ticks as needed
+ * 
+ * Limits are checked cooperatively between ticks, so a single slow tick can overrun the deadline.
+ * 
+ * Thread-safe, and may be shared by many emulators so that counters are aggregated.
+ * 
+ * @author Malcolm Lett
+ */
+public class TickScheduler {
+	public static final int DEFAULT_TICK_BUDGET = 1_000;
+	
+	// configuration
+	private final int tickBudget;
+	private final long deadlineNanos;
+	private final long minTickIntervalNanos;
+	
+	// metrics
+	private final AtomicLong runCount = new AtomicLong();
+	private final AtomicLong tickCount = new AtomicLong();
+	private final AtomicLong maxTicksPerRun = new AtomicLong();
+	private final Map<StopReason, AtomicLong> stopCounts = new EnumMap<>(StopReason.class);
+	
+	/**
+	 * Limited only by the default tick budget.
+	 */
+	public TickScheduler() {
+		this(DEFAULT_TICK_BUDGET, 0, TimeUnit.MILLISECONDS, 0);
+	}
+	
+	/**
+	 * @param tickBudget maximum ticks per command, or 0 for unlimited
+	 * @param deadline maximum time per command, or 0 for unlimited
+	 * @param unit unit of deadline
+	 * @param maxTicksPerSecond maximum rate of ticks, or 0 for unlimited
+	 */
+	public TickScheduler(int tickBudget, long deadline, TimeUnit unit, double maxTicksPerSecond) {
+		if (tickBudget < 0 || deadline < 0 || maxTicksPerSecond < 0) {
+			throw new IllegalArgumentException("Limits must not be negative");
+		}
+		this.tickBudget = tickBudget;
+		this.deadlineNanos = unit.toNanos(deadline);
+		this.minTickIntervalNanos = (maxTicksPerSecond == 0) ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / maxTicksPerSecond);
+		for (StopReason reason: StopReason.values()) {
+			stopCounts.put(reason, new AtomicLong());
+		}
+	}
+	
+	/**
+	 * Starts tracking the control loop for a new command.
+	 * @return tracker for the one run
+	 */
+	public Run start() {
+		return new Run();
+	}
+	
+	public int tickBudget() {
+		return tickBudget;
+	}
+	
+	public long deadline(TimeUnit unit) {
+		return unit.convert(deadlineNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @return total number of commands run
+	 */
+	public long runCount() {
+		return runCount.get();
+	}
+	
+	/**
+	 * @return total number of ticks run, across all commands
+	 */
+	public long tickCount() {
+		return tickCount.get();
+	}
+	
+	/**
+	 * @return most ticks run for a single command
+	 */
+	public long maxTicksPerRun() {
+		return maxTicksPerRun.get();
+	}
+	
+	/**
+	 * @param reason
+	 * @return number of runs that stopped for the given reason
+	 */
+	public long stopCount(StopReason reason) {
+		return stopCounts.get(reason).get();
+	}
+	
+	/**
+	 * The control loop's progress for a single command.
+	 * Not thread-safe: only used by the thread running the control loop.
+	 */
+	public class Run {
+		private final long startNanos = System.nanoTime();
+		private long lastTickNanos = 0;
+		private int ticks = 0;
+		private StopReason stopReason = null;
+		
+		private Run() {
+		}
+		
+		/**
+		 * Called before each tick.
+		 * Waits as needed to honour the rate limit, and checks the other limits.
+		 * @return null if the tick may run, otherwise the reason to stop
+		 */
+		public StopReason beforeTick() {
+			if (tickBudget > 0 && ticks >= tickBudget) {
+				return StopReason.TICK_BUDGET;
+			}
+			
+			if (ticks > 0 && minTickIntervalNanos > 0) {
+				long waitNanos = lastTickNanos + minTickIntervalNanos - System.nanoTime();
+				if (deadlineNanos > 0 && System.nanoTime() + waitNanos - startNanos >= deadlineNanos) {
+					return StopReason.DEADLINE;
+				}
+				if (waitNanos > 0) {
+					try {
+						TimeUnit.NANOSECONDS.sleep(waitNanos);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return StopReason.INTERRUPTED;
+					}
+				}
+			}
+			
+			long now = System.nanoTime();
+			if (deadlineNanos > 0 && now - startNanos >= deadlineNanos) {
+				return StopReason.DEADLINE;
+			}
+			
+			lastTickNanos = now;
+			ticks++;
+			return null;
+		}
+		
+		/**
+		 * Called once the control loop stops, to record the outcome.
+		 * @param reason
+		 */
+		public void finish(StopReason reason) {
+			if (stopReason != null) {
+				throw new IllegalStateException("Run already finished: " + stopReason);
+			}
+			stopReason = reason;
+			
+			runCount.incrementAndGet();
+			tickCount.addAndGet(ticks);
+			maxTicksPerRun.accumulateAndGet(ticks, Math::max);
+			stopCounts.get(reason).incrementAndGet();
+		}
+		
+		/**
+		 * @return number of ticks run so far
+		 */
+		public int ticks() {
+			return ticks;
+		}
+		
+		public long elapsed(TimeUnit unit) {
+			return unit.convert(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+		}
+		
+		/**
+		 * @return reason stopped, or null if not yet finished
+		 */
+		public StopReason stopReason() {
+			return stopReason;
+		}
+	}
+}
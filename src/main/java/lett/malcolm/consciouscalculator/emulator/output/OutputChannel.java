@@ -0,0 +1,346 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Broadcasts outputs from a single producer to any number of consumers.
+ * 
+ * Outputs are held in a fixed-size ring buffer, and each consumer reads through it with its own {@link Cursor},
+ * so that every consumer sees every output without copying.
+ * Consumers only see outputs published after they subscribe.
+ * 
+ * Publishing and reading are lock-free, until a consumer falls a full ring behind.
+ * What happens then is decided by that consumer's {@link SlowConsumerPolicy}.
+ * 
+ * Thread-safety: only one thread may publish at a time, and each cursor may only be read by one thread at a time.
+ * Otherwise, publishing, reading, subscribing, and closing may all happen concurrently.
+ * 
+ * @author Malcolm Lett
+ */
+public class OutputChannel {
+	private static final Logger LOG = LoggerFactory.getLogger(OutputChannel.class);
+	
+	// how long to wait between checks, when waiting on another thread
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	
+	private final int capacity;
+	private final int mask;
+	private final AtomicReferenceArray<Slot> ring;
+	private final List<Cursor> cursors = new CopyOnWriteArrayList<>();
+	
+	// sequence number of the next output to publish
+	private volatile long published = 0;
+	
+	/**
+	 * @param capacity number of outputs held, must be a power of 2
+	 */
+	public OutputChannel(int capacity) {
+		if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a power of 2, got " + capacity);
+		}
+		this.capacity = capacity;
+		this.mask = capacity - 1;
+		this.ring = new AtomicReferenceArray<>(capacity);
+	}
+	
+	/**
+	 * Adds a new consumer, which will see all outputs published from now on.
+	 * Consumers MUST be closed once no longer needed.
+	 * @param policy what to do if this consumer falls behind
+	 * @return cursor for the consumer to read through
+	 */
+	public Cursor subscribe(SlowConsumerPolicy policy) {
+		Cursor cursor = new Cursor(policy);
+		cursors.add(cursor);
+		cursor.position = published;
+		return cursor;
+	}
+	
+	/**
+	 * Publishes an output to all consumers.
+	 * May wait for, or write to disk on behalf of, slow consumers.
+	 * @param output
+	 */
+	public void publish(String output) {
+		long sequence = published;
+		long evicting = sequence - capacity;
+		if (evicting >= 0) {
+			Slot evicted = ring.get(index(evicting));
+			for (Cursor cursor: cursors) {
+				cursor.beforeEvicting(evicted);
+			}
+		}
+		
+		ring.set(index(sequence), new Slot(sequence, output));
+		published = sequence + 1;
+	}
+	
+	/**
+	 * Closes all consumers.
+	 */
+	public void closeAll() {
+		for (Cursor cursor: cursors) {
+			cursor.close();
+		}
+	}
+	
+	public int capacity() {
+		return capacity;
+	}
+	
+	/**
+	 * @return total number of outputs published so far
+	 */
+	public long publishedCount() {
+		return published;
+	}
+	
+	private int index(long sequence) {
+		return (int) (sequence & mask);
+	}
+	
+	/**
+	 * A single consumer's position within the channel.
+	 */
+	public class Cursor implements AutoCloseable {
+		private final SlowConsumerPolicy policy;
+		
+		// sequence number of the next output to read from the ring
+		// (starts as never behind, until subscribed)
+		private volatile long position = Long.MAX_VALUE;
+		private volatile boolean closed = false;
+		private volatile long droppedCount = 0;
+		
+		// OVERFLOW_TO_DISK only, guarded by 'this':
+		// outputs evicted before being read, which come before those still in the ring
+		private File spillPath;
+		private RandomAccessFile spillFile;
+		private long spillReadPos = 0;
+		private long spillWritePos = 0;
+		private int spillPending = 0;
+		private long spillResume = 0;
+		private long spilledCount = 0;
+		
+		private Cursor(SlowConsumerPolicy policy) {
+			this.policy = policy;
+		}
+		
+		/**
+		 * Reads the next output, if any.
+		 * @return next output, or null if none available yet
+		 * @throws UncheckedIOException if an overflowed output can't be read back from disk
+		 */
+		public String poll() {
+			if (policy == SlowConsumerPolicy.OVERFLOW_TO_DISK) {
+				synchronized (this) {
+					if (spillPending > 0) {
+						return readSpilled();
+					}
+					return pollRing();
+				}
+			}
+			return pollRing();
+		}
+		
+		/**
+		 * Reads the next output, waiting for one to be published if necessary.
+		 * @param timeout
+		 * @param unit
+		 * @return next output, or null if timed out, or closed
+		 * @throws InterruptedException
+		 */
+		public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			String output;
+			while ((output = poll()) == null && !closed) {
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					break;
+				}
+				LockSupport.parkNanos(Math.min(remaining, PARK_NANOS));
+			}
+			return output;
+		}
+		
+		private String pollRing() {
+			while (!closed) {
+				long current = position;
+				if (current >= published) {
+					return null;
+				}
+				
+				Slot slot = ring.get(index(current));
+				if (slot.sequence == current) {
+					position = current + 1;
+					return slot.output;
+				}
+				
+				// lapped by the producer: skip ahead to the oldest output still held
+				long oldest = published - capacity;
+				droppedCount += oldest - current;
+				position = oldest;
+			}
+			return null;
+		}
+		
+		/**
+		 * Called by the producer, before overwriting the given output.
+		 */
+		private void beforeEvicting(Slot evicted) {
+			switch (policy) {
+			case BLOCK:
+				while (!closed && position <= evicted.sequence && !Thread.currentThread().isInterrupted()) {
+					LockSupport.parkNanos(PARK_NANOS);
+				}
+				break;
+			case OVERFLOW_TO_DISK:
+				synchronized (this) {
+					if (!closed && position <= evicted.sequence) {
+						spill(evicted);
+					}
+				}
+				break;
+			case DROP:
+			default:
+				break;
+			}
+		}
+		
+		// must hold lock
+		private void spill(Slot evicted) {
+			try {
+				if (spillFile == null) {
+					spillPath = File.createTempFile("emulator-output-", ".spill");
+					spillPath.deleteOnExit();
+					spillFile = new RandomAccessFile(spillPath, "rw");
+				}
+				byte[] bytes = evicted.output.getBytes(StandardCharsets.UTF_8);
+				spillFile.seek(spillWritePos);
+				spillFile.writeInt(bytes.length);
+				spillFile.write(bytes);
+				spillWritePos = spillFile.getFilePointer();
+				spillPending++;
+				spilledCount++;
+			} catch (IOException e) {
+				LOG.warn("Unable to overflow output to disk, dropping it: " + e, e);
+				droppedCount++;
+				if (spillPending == 0) {
+					position = evicted.sequence + 1;
+				}
+			}
+			spillResume = evicted.sequence + 1;
+		}
+		
+		// must hold lock
+		private String readSpilled() {
+			try {
+				spillFile.seek(spillReadPos);
+				byte[] bytes = new byte[spillFile.readInt()];
+				spillFile.readFully(bytes);
+				spillReadPos = spillFile.getFilePointer();
+				
+				spillPending--;
+				if (spillPending == 0) {
+					// caught up, so continue from the ring
+					spillFile.setLength(0);
+					spillReadPos = 0;
+					spillWritePos = 0;
+					position = spillResume;
+				}
+				return new String(bytes, StandardCharsets.UTF_8);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to read overflowed output from " + spillPath, e);
+			}
+		}
+		
+		/**
+		 * @return number of outputs skipped because this consumer fell behind
+		 */
+		public long droppedCount() {
+			return droppedCount;
+		}
+		
+		/**
+		 * @return number of outputs written to disk because this consumer fell behind
+		 */
+		public synchronized long spilledCount() {
+			return spilledCount;
+		}
+		
+		public SlowConsumerPolicy policy() {
+			return policy;
+		}
+		
+		public boolean isClosed() {
+			return closed;
+		}
+		
+		/**
+		 * Stops consuming, releasing the producer from waiting on this consumer,
+		 * and deleting any overflow file.
+		 */
+		@Override
+		public void close() {
+			closed = true;
+			cursors.remove(this);
+			synchronized (this) {
+				if (spillFile != null) {
+					try {
+						spillFile.close();
+					} catch (IOException e) {
+						LOG.debug("Unable to close overflow file " + spillPath + ": " + e);
+					}
+					if (!spillPath.delete()) {
+						LOG.debug("Unable to delete overflow file " + spillPath);
+					}
+					spillFile = null;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * An output, along with its sequence number, so that readers can tell whether it has been overwritten.
+	 */
+	private static class Slot {
+		private final long sequence;
+		private final String output;
+		
+		public Slot(long sequence, String output) {
+			this.sequence = sequence;
+			this.output = output;
+		}
+	}
+}
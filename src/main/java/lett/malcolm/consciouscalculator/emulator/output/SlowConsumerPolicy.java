@@ -0,0 +1,46 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.output;
+
+/**
+ * What happens when a consumer falls so far behind that the producer
+ * is about to overwrite an output that the consumer hasn't read yet.
+ * 
+ * @author Malcolm Lett
+ */
+public enum SlowConsumerPolicy {
+	/**
+	 * Overwrite anyway. The consumer skips ahead to the oldest output still held,
+	 * and the skipped outputs are counted as dropped.
+	 * The producer is never held up.
+	 */
+	DROP,
+	
+	/**
+	 * The producer waits until the consumer has read the output.
+	 * Consumers with this policy MUST keep reading, or be closed.
+	 */
+	BLOCK,
+	
+	/**
+	 * The producer writes the unread output to a temporary file held for the consumer,
+	 * which the consumer reads from before returning to the ring.
+	 * Nothing is lost, and the producer is only held up for the write.
+	 */
+	OVERFLOW_TO_DISK
+}
@@ -37,10 +37,11 @@ import lett.malcolm.consciouscalculator.emulator.facts.OperatorFact;
 import lett.malcolm.consciouscalculator.emulator.facts.OperatorFact.OperatorSymbol;
 import lett.malcolm.consciouscalculator.emulator.facts.StatementTruthFact;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventInterest;
 import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Fact;
+import lett.malcolm.consciouscalculator.emulator.interfaces.IncrementalProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
-import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
 
 /**
  * Evaluates and tests un-evaluated equations.
@@ -59,8 +60,10 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
 //
 // TODO this class can be merged with ExpressionEvaluationProcessor, as
 // this implementation can handle both expressions and equations.
-public class EquationEvaluationProcessor implements Processor {
+public class EquationEvaluationProcessor implements IncrementalProcessor {
 	private static final Logger LOG = LoggerFactory.getLogger(EquationEvaluationProcessor.class);
+	private static final EventInterest INTEREST = EventInterest.of(PerceptEvent.class)
+			.excluding(EventTag.COMPLETED, EventTag.HANDLED);
 
 	private Clock clock;
 	
@@ -68,6 +71,11 @@ public class EquationEvaluationProcessor implements Processor {
 		this.clock = clock;
 	}
 
+	@Override
+	public EventInterest interest() {
+		return INTEREST;
+	}
+	
 	/**
 	 * Only looks at working memory, and evaluates the expression it finds,
 	 * but only if the expression hasn't already been evaluated.
@@ -85,7 +93,7 @@ public class EquationEvaluationProcessor implements Processor {
 	 */
 	@Override
 	public List<Event> process(List<Event> events, WorkingMemory memory) {
-		for (Event memoryItem: memory.all()) {
+		for (Event memoryItem: memory.pending(this)) {
 			if (accepts(memoryItem)) {
 				try {
 					Percept result = evaluate(((PerceptEvent) memoryItem).data());
@@ -40,9 +40,10 @@ import lett.malcolm.consciouscalculator.emulator.facts.NumberFact;
 import lett.malcolm.consciouscalculator.emulator.facts.OperatorFact;
 import lett.malcolm.consciouscalculator.emulator.facts.OperatorFact.OperatorSymbol;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventInterest;
 import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
+import lett.malcolm.consciouscalculator.emulator.interfaces.IncrementalProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
-import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
 
 /**
  * Detects textual mathematical expressions and equations within received command request events,
@@ -54,8 +55,10 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
  * @author Malcolm Lett
  */
 // TODO should it avoid emitting unless a GoingNowhereEvent is present?
-public class ExpressionAndEquationParseProcessor implements Processor {
+public class ExpressionAndEquationParseProcessor implements IncrementalProcessor {
 	private static final Logger LOG = LoggerFactory.getLogger(ExpressionAndEquationParseProcessor.class);
+	private static final EventInterest INTEREST = EventInterest.of(TextRequestEvent.class)
+			.excluding(EventTag.COMPLETED, EventTag.HANDLED);
 	
 	private Clock clock;
 	
@@ -63,6 +66,11 @@ public class ExpressionAndEquationParseProcessor implements Processor {
 		this.clock = clock;
 	}
 
+	@Override
+	public EventInterest interest() {
+		return INTEREST;
+	}
+	
 	/**
 	 * Only looks at working memory, and issues the first parsed expression it finds.
 	 * 
@@ -79,7 +87,7 @@ public class ExpressionAndEquationParseProcessor implements Processor {
 	 */
 	@Override
 	public List<Event> process(List<Event> events, WorkingMemory memory) {
-		for (Event memoryItem: memory.all()) {
+		for (Event memoryItem: memory.pending(this)) {
 			if (accepts(memoryItem)) {
 				String text = (String) memoryItem.data();
 				Percept expr;
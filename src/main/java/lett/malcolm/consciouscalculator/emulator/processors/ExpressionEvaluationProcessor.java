@@ -33,10 +33,11 @@ import lett.malcolm.consciouscalculator.emulator.facts.NumberFact;
 import lett.malcolm.consciouscalculator.emulator.facts.OperatorFact;
 import lett.malcolm.consciouscalculator.emulator.facts.OperatorFact.OperatorSymbol;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventInterest;
 import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Fact;
+import lett.malcolm.consciouscalculator.emulator.interfaces.IncrementalProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
-import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
 
 /**
  * Evaluates un-evaluated expressions.
@@ -54,8 +55,10 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
 // Or REPLACE the existing event?
 //
 // TODO this class can be merged with EquationEvaluationProcessor 
-public class ExpressionEvaluationProcessor implements Processor {
+public class ExpressionEvaluationProcessor implements IncrementalProcessor {
 	private static final Logger LOG = LoggerFactory.getLogger(ExpressionEvaluationProcessor.class);
+	private static final EventInterest INTEREST = EventInterest.of(PerceptEvent.class)
+			.excluding(EventTag.COMPLETED, EventTag.HANDLED);
 
 	private Clock clock;
 	
@@ -63,6 +66,11 @@ public class ExpressionEvaluationProcessor implements Processor {
 		this.clock = clock;
 	}
 
+	@Override
+	public EventInterest interest() {
+		return INTEREST;
+	}
+	
 	/**
 	 * Only looks at working memory, and evaluates the expression it finds,
 	 * but only if the expression hasn't already been evaluated.
@@ -80,7 +88,7 @@ public class ExpressionEvaluationProcessor implements Processor {
 	 */
 	@Override
 	public List<Event> process(List<Event> events, WorkingMemory memory) {
-		for (Event memoryItem: memory.all()) {
+		for (Event memoryItem: memory.pending(this)) {
 			if (accepts(memoryItem)) {
 				try {
 					Percept result = evaluate(((PerceptEvent) memoryItem).data());
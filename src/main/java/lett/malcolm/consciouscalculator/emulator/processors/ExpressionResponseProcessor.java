@@ -32,9 +32,10 @@ import lett.malcolm.consciouscalculator.emulator.events.PerceptEvent;
 import lett.malcolm.consciouscalculator.emulator.facts.EquationFact;
 import lett.malcolm.consciouscalculator.emulator.facts.ExpressionFact;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventInterest;
 import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
+import lett.malcolm.consciouscalculator.emulator.interfaces.InterestAwareProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
-import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
 
 /**
  * Triggers a response from an evaluated expression, that was created as a request.
@@ -44,8 +45,10 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
  * 
  * @author Malcolm Lett
  */
-public class ExpressionResponseProcessor implements Processor {
+public class ExpressionResponseProcessor implements InterestAwareProcessor {
 	private static final Logger LOG = LoggerFactory.getLogger(ExpressionResponseProcessor.class);
+	private static final EventInterest INTEREST = EventInterest.of(PerceptEvent.class).requiring(EventTag.CONCLUSION)
+			.excluding(EventTag.COMPLETED, EventTag.HANDLED);
 
 	private Clock clock;
 	
@@ -53,12 +56,17 @@ public class ExpressionResponseProcessor implements Processor {
 		this.clock = clock;
 	}
 
+	@Override
+	public EventInterest interest() {
+		return INTEREST;
+	}
+	
 	/**
 	 * TODO flag original REQUEST as COMPLETE
 	 */
 	@Override
 	public List<Event> process(List<Event> events, WorkingMemory memory) {
-		for (Event memoryItem: memory.all()) {
+		for (Event memoryItem: memory.candidates(INTEREST)) {
 			if (accepts(memoryItem) && hasTiesBackToARequest(memoryItem, memory)) {
 				Percept result = ((PerceptEvent) memoryItem).data();
 				try {
@@ -35,9 +35,10 @@ import lett.malcolm.consciouscalculator.emulator.events.MemorySearchRequestEvent
 import lett.malcolm.consciouscalculator.emulator.events.PerceptEvent;
 import lett.malcolm.consciouscalculator.emulator.events.StuckThoughtEvent;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventInterest;
 import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
+import lett.malcolm.consciouscalculator.emulator.interfaces.InterestAwareProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
-import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
 import lett.malcolm.consciouscalculator.utils.Events;
 
 /**
@@ -55,8 +56,10 @@ import lett.malcolm.consciouscalculator.utils.Events;
 //TODO tech-debt: don't use HANDLED flag, instead using presence of percepts that might be useful.
 //Even if something is present for some other reason, try it first before doing query.
 //Use the AttemptTrackingEvent to track that that pre-existing percept was of no use.
-public class FindMatchingConceptProcessor implements Processor {
+public class FindMatchingConceptProcessor implements InterestAwareProcessor {
 	private static final Logger LOG = LoggerFactory.getLogger(FindMatchingConceptProcessor.class);
+	private static final EventInterest INTEREST = EventInterest.of(StuckThoughtEvent.class)
+			.excluding(EventTag.COMPLETED, EventTag.HANDLED);
 
 	private Clock clock;
 	
@@ -64,6 +67,11 @@ public class FindMatchingConceptProcessor implements Processor {
 		this.clock = clock;
 	}
 
+	@Override
+	public EventInterest interest() {
+		return INTEREST;
+	}
+	
 	/**
 	 * Operates against two events:
 	 * - the 'trigger' -- a StuckThoughtEvent
@@ -73,7 +81,7 @@ public class FindMatchingConceptProcessor implements Processor {
 	public List<Event> process(List<Event> events, WorkingMemory memory) {
 		List<Event> result = new ArrayList<>();
 		
-		for (Event memoryItem: memory.all()) {
+		for (Event memoryItem: memory.candidates(INTEREST)) {
 			if (acceptsTriggerEvent(memoryItem)) {
 				// find target
 				Event target = findTargetMemoryItem((StuckThoughtEvent) memoryItem, memory);
@@ -31,10 +31,11 @@ import lett.malcolm.consciouscalculator.emulator.events.MemoryEvent;
 import lett.malcolm.consciouscalculator.emulator.events.MemorySearchRequestEvent;
 import lett.malcolm.consciouscalculator.emulator.events.PerceptEvent;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventInterest;
 import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
+import lett.malcolm.consciouscalculator.emulator.interfaces.InterestAwareProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.LTMAwareProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
-import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
 
 /**
  * Performs a search against Long Term Memory.
@@ -42,11 +43,16 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
  * Known Event types acted on by the this processor:
  * - {@link MemorySearchRequestEvent}
  * 
+ * Not incremental, because whether a request finds anything depends on what's in
+ * Long Term Memory at the time, so unanswered requests are searched again each tick.
+ * 
  * @author Malcolm Lett
  */
 // TODO do one for ShortTermMemory too
-public class LongTermMemorySearchProcessor implements Processor, LTMAwareProcessor {
+public class LongTermMemorySearchProcessor implements LTMAwareProcessor, InterestAwareProcessor {
 	private static final Logger LOG = LoggerFactory.getLogger(LongTermMemorySearchProcessor.class);
+	private static final EventInterest INTEREST = EventInterest.of(MemorySearchRequestEvent.class)
+			.excluding(EventTag.COMPLETED, EventTag.HANDLED);
 
 	private Clock clock;
 	private LongTermMemory longTermMemory;
@@ -60,9 +66,14 @@ public class LongTermMemorySearchProcessor implements Processor, LTMAwareProcess
 		this.longTermMemory = longTermMemory;
 	}
 
+	@Override
+	public EventInterest interest() {
+		return INTEREST;
+	}
+	
 	@Override
 	public List<Event> process(List<Event> events, WorkingMemory memory) {
-		for (Event memoryItem: memory.all()) {
+		for (Event memoryItem: memory.candidates(INTEREST)) {
 			if (accepts(memoryItem)) {
 				Object referenceData = ((MemorySearchRequestEvent) memoryItem).getReferenceData();
 				
@@ -31,8 +31,9 @@ import lett.malcolm.consciouscalculator.emulator.WorkingMemory;
 import lett.malcolm.consciouscalculator.emulator.events.ActionEvent;
 import lett.malcolm.consciouscalculator.emulator.interfaces.ActionAwareProcessor;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventInterest;
 import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
-import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
+import lett.malcolm.consciouscalculator.emulator.interfaces.IncrementalProcessor;
 
 /**
  * Executes any actions that are present within working memory.
@@ -46,8 +47,10 @@ import lett.malcolm.consciouscalculator.emulator.interfaces.Processor;
  * 
  * @author Malcolm Lett
  */
-public class SpeakActionProcessor implements Processor, ActionAwareProcessor {
+public class SpeakActionProcessor implements ActionAwareProcessor, IncrementalProcessor {
 	private static final Logger LOG = LoggerFactory.getLogger(SpeakActionProcessor.class);
+	private static final EventInterest INTEREST = EventInterest.of(ActionEvent.class)
+			.excluding(EventTag.COMPLETED, EventTag.HANDLED);
 	
 	private Clock clock;
 	private Queue<String> outputStream;
@@ -61,6 +64,11 @@ public class SpeakActionProcessor implements Processor, ActionAwareProcessor {
 		this.outputStream = stream;
 	}
 	
+	@Override
+	public EventInterest interest() {
+		return INTEREST;
+	}
+	
 	/**
 	 * TODO
 	 */
@@ -68,19 +76,15 @@ public class SpeakActionProcessor implements Processor, ActionAwareProcessor {
 	public List<Event> process(List<Event> events, WorkingMemory memory) {
 		List<Event> handledEvents = new ArrayList<>();
 		
-		for (Event memoryItem: memory.all()) {
+		for (Event memoryItem: memory.pending(this)) {
 			if (accepts(memoryItem)) {
 				// execute action
+				// (fails loudly rather than losing output, if the stream is full)
 				String text = (String) memoryItem.data();
-				outputStream.offer(text);
-				
-				// TODO nasty hack for now
-				String t;
-				while ((t = outputStream.poll()) != null) {
-					LOG.info("========================================================", t);
-					LOG.info(t);
-					LOG.info("========================================================", t);
-				}
+				outputStream.add(text);
+				LOG.info("========================================================");
+				LOG.info(text);
+				LOG.info("========================================================");
 				
 				// record as handled
 				Event updatedMemoryItem = memoryItem.clone();
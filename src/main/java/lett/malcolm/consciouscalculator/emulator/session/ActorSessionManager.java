@@ -0,0 +1,539 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.session;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lett.malcolm.consciouscalculator.emulator.CommandResult;
+import lett.malcolm.consciouscalculator.emulator.Emulator;
+import lett.malcolm.consciouscalculator.emulator.EmulatorSnapshot;
+import lett.malcolm.consciouscalculator.emulator.EmulatorState;
+
+/**
+ * Hosts emulator sessions as actors, multiplexed over a fixed pool of worker threads.
+ * 
+ * Each session's emulator is only ever touched by its actor, which works through a mailbox
+ * of messages (commands, snapshot requests, and shutdown) one at a time.
+ * So no more than one thread runs a given emulator at once, without the emulator's memories
+ * needing to be thread-safe themselves.
+ * An actor only occupies a worker while it has messages, so thousands of mostly idle sessions
+ * can share a handful of threads.
+ * 
+ * Workers are a work-stealing {@link ForkJoinPool}, so that idle workers take over queued
+ * actors from workers kept busy by CPU-heavy sessions.
+ * Each actor handles a limited number of messages before yielding its worker to other actors.
+ * 
+ * Optionally, sessions left idle for long enough are hibernated: their state is saved to a
+ * {@link FileSessionStore} and their emulator released, so that heap use scales with active
+ * sessions rather than all sessions. A hibernated session is revived on its next message.
+ * Once enabled, idle sessions are looked for periodically, until disabled again.
+ * If a session can't be revived, its saved state is moved aside, the message that
+ * woke it fails, and it carries on afresh.
+ * 
+ * Thread-safe.
+ * 
+ * @author Malcolm Lett
+ */
+public class ActorSessionManager implements SessionManager {
+	private static final Logger LOG = LoggerFactory.getLogger(ActorSessionManager.class);
+	
+	// max messages handled by an actor before yielding its worker
+	public static final int DEFAULT_THROUGHPUT = 4;
+	
+	// how often to look for idle sessions, as a fraction of the idle time
+	private static final int HIBERNATION_CHECKS_PER_IDLE_TIME = 4;
+	
+	// looks for idle sessions to hibernate, shared by all managers
+	private static final ScheduledExecutorService HIBERNATION_CHECKS = Executors.newSingleThreadScheduledExecutor(task -> {
+		Thread thread = new Thread(task, "session-hibernation");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	// special messages, handled by the actor itself
+	private static final Message HIBERNATE = emulator -> {};
+	private static final Message SHUTDOWN = emulator -> {};
+	
+	private final Supplier<Emulator> factory;
+	private final ForkJoinPool workers;
+	private final int throughput;
+	private final ConcurrentMap<String, Actor> actors = new ConcurrentHashMap<>();
+	
+	// hibernation (disabled unless store set)
+	private volatile FileSessionStore hibernationStore;
+	private volatile long hibernateAfterNanos;
+	private ScheduledFuture<?> hibernationTask; // guarded by 'this'
+	
+	// metrics
+	private final AtomicLong messageCount = new AtomicLong();
+	private final AtomicLong scheduleCount = new AtomicLong();
+	private final AtomicInteger hibernated = new AtomicInteger();
+	private final AtomicLong hibernateCount = new AtomicLong();
+	private final AtomicLong reviveCount = new AtomicLong();
+	private final AtomicLong totalReviveNanos = new AtomicLong();
+	private final AtomicLong maxReviveNanos = new AtomicLong();
+	
+	/**
+	 * Uses a new pool with one worker per processor.
+	 * @param factory creates the emulator for each new session
+	 */
+	public ActorSessionManager(Supplier<Emulator> factory) {
+		this(factory, new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+				ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true), DEFAULT_THROUGHPUT);
+	}
+	
+	/**
+	 * @param factory creates the emulator for each new session
+	 * @param workers pool that actors run on, preferably in async mode
+	 * @param throughput max messages handled by an actor before yielding its worker
+	 */
+	public ActorSessionManager(Supplier<Emulator> factory, ForkJoinPool workers, int throughput) {
+		if (throughput < 1) {
+			throw new IllegalArgumentException("Throughput must be at least 1, got " + throughput);
+		}
+		this.factory = factory;
+		this.workers = workers;
+		this.throughput = throughput;
+	}
+	
+	/**
+	 * Enables hibernation of sessions idle for at least the given time.
+	 * Idle sessions are looked for a few times per idle time, so are hibernated soon after.
+	 * Callers MUST {@link #disableHibernation()} when done with the manager.
+	 * @param store where to save hibernated sessions
+	 * @param idleTime
+	 * @param unit
+	 */
+	public synchronized void enableHibernation(FileSessionStore store, long idleTime, TimeUnit unit) {
+		long idleNanos = unit.toNanos(idleTime);
+		if (idleNanos <= 0) {
+			throw new IllegalArgumentException("Idle time must be positive, got " + idleTime + " " + unit);
+		}
+		this.hibernateAfterNanos = idleNanos;
+		this.hibernationStore = store;
+		
+		if (hibernationTask != null) {
+			hibernationTask.cancel(false);
+		}
+		long period = Math.max(1, idleNanos / HIBERNATION_CHECKS_PER_IDLE_TIME);
+		hibernationTask = HIBERNATION_CHECKS.scheduleAtFixedRate(this::hibernateIdleSafely, period, period, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Stops hibernating idle sessions.
+	 * Sessions already hibernated are still revived on their next message.
+	 */
+	public synchronized void disableHibernation() {
+		if (hibernationTask != null) {
+			hibernationTask.cancel(false);
+			hibernationTask = null;
+		}
+		this.hibernateAfterNanos = 0;
+	}
+	
+	/**
+	 * Hibernates all sessions that have been idle for long enough.
+	 * Called periodically once hibernation is enabled, but may also be called directly.
+	 * Each session is hibernated in turn with its other messages, so this returns before they're done.
+	 * Does nothing unless hibernation is enabled.
+	 * @return number of sessions asked to hibernate
+	 */
+	public int hibernateIdle() {
+		if (hibernationStore == null) {
+			return 0;
+		}
+		int count = 0;
+		for (Actor actor: actors.values()) {
+			if (actor.isHibernationDue() && actor.post(HIBERNATE)) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	// (exceptions would stop the periodic task)
+	private void hibernateIdleSafely() {
+		try {
+			hibernateIdle();
+		} catch (RuntimeException e) {
+			LOG.error("Unable to look for idle sessions: " + e, e);
+		}
+	}
+	
+	@Override
+	public CompletableFuture<CommandResult> sendCommand(String sessionId, String text) {
+		CompletableFuture<CommandResult> result = new CompletableFuture<>();
+		tell(sessionId, reply(result, emulator -> emulator.execute(text)));
+		return result;
+	}
+	
+	/**
+	 * Takes a snapshot of the session's memories, in turn with its other messages.
+	 * @param sessionId
+	 * @return future snapshot, or null if no such session
+	 */
+	public CompletableFuture<EmulatorSnapshot> snapshot(String sessionId) {
+		Actor actor = actors.get(sessionId);
+		if (actor == null) {
+			return null;
+		}
+		CompletableFuture<EmulatorSnapshot> result = new CompletableFuture<>();
+		boolean posted = actor.post(reply(result, Emulator::snapshot));
+		return posted ? result : null;
+	}
+	
+	@Override
+	public boolean close(String sessionId) {
+		Actor actor = actors.remove(sessionId);
+		if (actor == null) {
+			return false;
+		}
+		actor.shutdown();
+		return true;
+	}
+	
+	@Override
+	public void closeAll() {
+		for (String sessionId: actors.keySet()) {
+			close(sessionId);
+		}
+	}
+	
+	@Override
+	public Set<String> sessionIds() {
+		return actors.keySet();
+	}
+	
+	@Override
+	public int sessionCount() {
+		return actors.size();
+	}
+	
+	/**
+	 * @return total number of messages handled, or being handled
+	 */
+	public long messageCount() {
+		return messageCount.get();
+	}
+	
+	/**
+	 * @return total number of times actors have been given a worker
+	 */
+	public long scheduleCount() {
+		return scheduleCount.get();
+	}
+	
+	/**
+	 * @return number of sessions currently hibernated
+	 */
+	public int hibernatedCount() {
+		return hibernated.get();
+	}
+	
+	/**
+	 * @return total number of times sessions have been hibernated
+	 */
+	public long hibernateCount() {
+		return hibernateCount.get();
+	}
+	
+	/**
+	 * @return total number of times sessions have been revived
+	 */
+	public long reviveCount() {
+		return reviveCount.get();
+	}
+	
+	/**
+	 * @return total time spent reviving sessions
+	 */
+	public long totalReviveTime(TimeUnit unit) {
+		return unit.convert(totalReviveNanos.get(), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @return longest time spent reviving a single session
+	 */
+	public long maxReviveTime(TimeUnit unit) {
+		return unit.convert(maxReviveNanos.get(), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @return number of actors taken over by idle workers
+	 */
+	public long stealCount() {
+		return workers.getStealCount();
+	}
+	
+	public ForkJoinPool workers() {
+		return workers;
+	}
+	
+	private void tell(String sessionId, Message message) {
+		while (true) {
+			Actor actor = actors.computeIfAbsent(sessionId, Actor::new);
+			if (actor.post(message)) {
+				return;
+			}
+			// shut down concurrently, so start afresh
+			actors.remove(sessionId, actor);
+		}
+	}
+	
+	/**
+	 * Message that completes the result with what the action returns, or with its failure.
+	 */
+	private static <T> Message reply(CompletableFuture<T> result, Function<Emulator, T> action) {
+		return new Message() {
+			@Override
+			public void deliver(Emulator emulator) {
+				try {
+					result.complete(action.apply(emulator));
+				} catch (RuntimeException | Error e) {
+					result.completeExceptionally(e);
+				}
+			}
+			
+			@Override
+			public void fail(RuntimeException cause) {
+				result.completeExceptionally(cause);
+			}
+		};
+	}
+	
+	/**
+	 * Something for an actor to do with its emulator.
+	 */
+	private interface Message {
+		public void deliver(Emulator emulator);
+		
+		/**
+		 * Called instead of {@link #deliver(Emulator)} when the session can't be revived.
+		 * @param cause
+		 */
+		public default void fail(RuntimeException cause) {
+		}
+	}
+	
+	/**
+	 * A single session, and its mailbox.
+	 */
+	private class Actor {
+		private final String id;
+		private final Queue<Message> mailbox = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private boolean shutdown = false; // guarded by 'this'
+		private volatile long lastActiveNanos = System.nanoTime();
+		
+		// only touched in turn; null while hibernated
+		private Emulator emulator;
+		private volatile boolean isHibernated = false;
+		
+		public Actor(String id) {
+			this.id = id;
+			this.emulator = factory.get();
+		}
+		
+		/**
+		 * @return false if already shut down
+		 */
+		public synchronized boolean post(Message message) {
+			if (shutdown) {
+				return false;
+			}
+			mailbox.offer(message);
+			schedule();
+			return true;
+		}
+		
+		/**
+		 * Stops accepting messages. Those already in the mailbox are still handled.
+		 */
+		public synchronized void shutdown() {
+			if (!shutdown) {
+				shutdown = true;
+				mailbox.offer(SHUTDOWN);
+				schedule();
+			}
+		}
+		
+		private void schedule() {
+			if (scheduled.compareAndSet(false, true)) {
+				scheduleCount.incrementAndGet();
+				workers.execute(this::drain);
+			}
+		}
+		
+		private void drain() {
+			try {
+				Message message;
+				for (int i = 0; i < throughput && (message = mailbox.poll()) != null; i++) {
+					if (message == HIBERNATE) {
+						hibernate();
+						continue;
+					}
+					else if (message == SHUTDOWN) {
+						discard();
+						continue;
+					}
+					
+					messageCount.incrementAndGet();
+					Emulator target = null;
+					try {
+						target = awaken();
+					} catch (RuntimeException e) {
+						LOG.error("Session " + id + " failed to revive: " + e, e);
+						message.fail(e);
+					}
+					if (target != null) {
+						try {
+							message.deliver(target);
+						} catch (RuntimeException | Error e) {
+							LOG.error("Session " + id + " failed to handle message: " + e, e);
+						}
+					}
+					lastActiveNanos = System.nanoTime();
+				}
+			} finally {
+				// yield, rescheduling if more has arrived
+				scheduled.set(false);
+				if (!mailbox.isEmpty()) {
+					schedule();
+				}
+			}
+		}
+		
+		public boolean isHibernationDue() {
+			return !isHibernated && hibernateAfterNanos > 0 &&
+					System.nanoTime() - lastActiveNanos >= hibernateAfterNanos;
+		}
+		
+		// in turn only
+		private void hibernate() {
+			FileSessionStore store = hibernationStore;
+			if (store == null || !isHibernationDue() || !mailbox.isEmpty()) {
+				// no longer idle
+				return;
+			}
+			try {
+				store.save(id, emulator.captureState());
+				emulator = null;
+				isHibernated = true;
+				hibernated.incrementAndGet();
+				hibernateCount.incrementAndGet();
+				LOG.debug("Session {} hibernated", id);
+			} catch (IOException | RuntimeException e) {
+				LOG.warn("Unable to hibernate session " + id + ", keeping it in memory: " + e, e);
+			}
+		}
+		
+		/**
+		 * In turn only.
+		 * @return emulator, revived if hibernated
+		 * @throws IllegalStateException if its state couldn't be revived, in which case
+		 * the session carries on afresh, with its saved state moved aside
+		 */
+		private Emulator awaken() {
+			if (!isHibernated) {
+				return emulator;
+			}
+			
+			long start = System.nanoTime();
+			Emulator revived = factory.get();
+			IllegalStateException failure = null;
+			try {
+				EmulatorState state = hibernationStore.load(id);
+				if (state != null) {
+					revived.restoreState(state);
+				}
+			} catch (IOException | RuntimeException e) {
+				// (may have been partly restored)
+				revived = factory.get();
+				failure = new IllegalStateException("Unable to revive session " + id + ", continuing with fresh state: " + e, e);
+				quarantine();
+			}
+			if (failure == null) {
+				delete();
+			}
+			emulator = revived;
+			isHibernated = false;
+			
+			long elapsed = System.nanoTime() - start;
+			hibernated.decrementAndGet();
+			reviveCount.incrementAndGet();
+			totalReviveNanos.addAndGet(elapsed);
+			maxReviveNanos.accumulateAndGet(elapsed, Math::max);
+			if (failure != null) {
+				throw failure;
+			}
+			LOG.debug("Session {} revived in {} ms", id, TimeUnit.NANOSECONDS.toMillis(elapsed));
+			return revived;
+		}
+		
+		// in turn only
+		private void quarantine() {
+			try {
+				Path path = hibernationStore.quarantine(id);
+				LOG.warn("Moved unreadable state of session {} to {}", id, path);
+			} catch (IOException e) {
+				LOG.warn("Unable to move aside unreadable state of session " + id + ", deleting it instead: " + e);
+				delete();
+			}
+		}
+		
+		// in turn only
+		private void delete() {
+			try {
+				hibernationStore.delete(id);
+			} catch (IOException e) {
+				LOG.warn("Unable to delete hibernated session " + id + ": " + e);
+			}
+		}
+		
+		// in turn only
+		private void discard() {
+			if (isHibernated) {
+				delete();
+				isHibernated = false;
+				hibernated.decrementAndGet();
+			}
+			emulator = null;
+			LOG.debug("Session {} shut down", id);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.session;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import lett.malcolm.consciouscalculator.emulator.EmulatorState;
+
+/**
+ * Stores the state of hibernated sessions as files in a local directory, one per session.
+ * 
+ * Thread-safe, provided that each session is only saved or loaded by one thread at a time.
+ * 
+ * @author Malcolm Lett
+ */
+public class FileSessionStore {
+	private static final String SUFFIX = ".session";
+	private static final String QUARANTINE_SUFFIX = ".corrupt";
+	
+	private final Path directory;
+	
+	/**
+	 * @param directory where to keep files, created if necessary
+	 * @throws UncheckedIOException if the directory can't be created
+	 */
+	public FileSessionStore(Path directory) {
+		try {
+			this.directory = Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to create session store at " + directory, e);
+		}
+	}
+	
+	/**
+	 * Saves the session's state, replacing any already saved.
+	 * @param sessionId
+	 * @param state
+	 * @throws IOException
+	 */
+	public void save(String sessionId, EmulatorState state) throws IOException {
+		// write fully before replacing, so that a failed save doesn't lose the previous state
+		Path temp = Files.createTempFile(directory, "session-", ".tmp");
+		try {
+			try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeObject(state);
+			}
+			Files.move(temp, pathOf(sessionId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	/**
+	 * @param sessionId
+	 * @return saved state, or null if none
+	 * @throws IOException
+	 */
+	public EmulatorState load(String sessionId) throws IOException {
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(pathOf(sessionId))))) {
+			return (EmulatorState) in.readObject();
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (ClassNotFoundException | ClassCastException e) {
+			throw new IOException("Unable to read session " + sessionId + ": " + e, e);
+		}
+	}
+	
+	/**
+	 * @param sessionId
+	 * @return true if deleted, false if nothing was saved
+	 * @throws IOException
+	 */
+	public boolean delete(String sessionId) throws IOException {
+		return Files.deleteIfExists(pathOf(sessionId));
+	}
+	
+	/**
+	 * Moves the session's saved state aside, eg: when it can't be loaded,
+	 * so that it's no longer found but is kept for investigation.
+	 * Replaces anything previously moved aside for the session.
+	 * @param sessionId
+	 * @return where moved to, or null if nothing was saved
+	 * @throws IOException
+	 */
+	public Path quarantine(String sessionId) throws IOException {
+		Path path = pathOf(sessionId);
+		try {
+			return Files.move(path, path.resolveSibling(path.getFileName() + QUARANTINE_SUFFIX),
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * @param sessionId
+	 * @return whether state is saved for the session
+	 */
+	public boolean contains(String sessionId) {
+		return Files.exists(pathOf(sessionId));
+	}
+	
+	public Path directory() {
+		return directory;
+	}
+	
+	private Path pathOf(String sessionId) {
+		try {
+			// encoded so that ids can't escape the directory
+			return directory.resolve(URLEncoder.encode(sessionId, "UTF-8") + SUFFIX);
+		} catch (UnsupportedEncodingException e) {
+			// not expected
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.session;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import lett.malcolm.consciouscalculator.emulator.CommandResult;
+
+/**
+ * Hosts many long-lived emulator sessions, identified by key.
+ * Each session has its own emulator, which runs one command at a time, in the order sent.
+ * 
+ * Implementations differ in how they assign threads to sessions.
+ * 
+ * @author Malcolm Lett
+ */
+public interface SessionManager {
+	/**
+	 * Sends a command to the session, creating it if needed.
+	 * @param sessionId
+	 * @param text
+	 * @return future result
+	 */
+	public CompletableFuture<CommandResult> sendCommand(String sessionId, String text);
+	
+	/**
+	 * Closes the session, after any commands already sent to it have run.
+	 * @param sessionId
+	 * @return false if no such session
+	 */
+	public boolean close(String sessionId);
+	
+	/**
+	 * Closes all sessions, after any commands already sent have run.
+	 */
+	public void closeAll();
+	
+	/**
+	 * @return ids of all open sessions
+	 */
+	public Set<String> sessionIds();
+	
+	public int sessionCount();
+}
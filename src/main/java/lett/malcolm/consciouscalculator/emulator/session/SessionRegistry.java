@@ -0,0 +1,311 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.session;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lett.malcolm.consciouscalculator.emulator.CommandResult;
+import lett.malcolm.consciouscalculator.emulator.Emulator;
+
+/**
+ * Hosts long-lived emulator sessions, identified by key, each with its own emulator and
+ * its own thread that runs commands in the order sent.
+ * 
+ * Where virtual threads are available (Java 21+), each session's thread is virtual, and
+ * simply parks while the session has no commands, so idle sessions cost little more
+ * than the memory of their emulator.
+ * Otherwise, platform threads are used, which exit after a keep-alive period without commands,
+ * and are restarted by the next command.
+ * 
+ * Sessions are created on first command, and live until closed.
+ * 
+ * Thread-safe.
+ * 
+ * @author Malcolm Lett
+ */
+public class SessionRegistry implements SessionManager {
+	private static final Logger LOG = LoggerFactory.getLogger(SessionRegistry.class);
+	
+	public static final long DEFAULT_PLATFORM_KEEP_ALIVE_MS = 60_000;
+	
+	private final Supplier<Emulator> factory;
+	private final ThreadFactory threadFactory;
+	private final long keepAliveNanos;
+	private final boolean virtual;
+	private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+	
+	// metrics
+	private final AtomicInteger runningThreads = new AtomicInteger();
+	private final AtomicLong threadStartCount = new AtomicLong();
+	private final AtomicLong commandCount = new AtomicLong();
+	
+	/**
+	 * Uses virtual threads if available, otherwise platform threads with the default keep-alive.
+	 * @param factory creates the emulator for each new session
+	 */
+	public SessionRegistry(Supplier<Emulator> factory) {
+		ThreadFactory virtualThreads = VirtualThreads.factory("session-");
+		this.factory = factory;
+		this.virtual = (virtualThreads != null);
+		if (virtual) {
+			this.threadFactory = virtualThreads;
+			this.keepAliveNanos = 0;
+		}
+		else {
+			this.threadFactory = platformThreads();
+			this.keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_PLATFORM_KEEP_ALIVE_MS);
+			LOG.info("Virtual threads not available, using platform threads per active session");
+		}
+	}
+	
+	/**
+	 * @param factory creates the emulator for each new session
+	 * @param threadFactory creates each session's thread
+	 * @param keepAlive how long a thread waits for further commands before exiting, or 0 to wait forever
+	 * @param unit
+	 */
+	public SessionRegistry(Supplier<Emulator> factory, ThreadFactory threadFactory, long keepAlive, TimeUnit unit) {
+		this.factory = factory;
+		this.threadFactory = threadFactory;
+		this.keepAliveNanos = unit.toNanos(keepAlive);
+		this.virtual = false;
+	}
+	
+	/**
+	 * Sends a command to the session, creating it if needed.
+	 * @param sessionId
+	 * @param text
+	 * @return future result, completed on the session's thread
+	 */
+	@Override
+	public CompletableFuture<CommandResult> sendCommand(String sessionId, String text) {
+		while (true) {
+			Session session = sessions.computeIfAbsent(sessionId, Session::new);
+			CompletableFuture<CommandResult> result = session.post(text);
+			if (result != null) {
+				commandCount.incrementAndGet();
+				return result;
+			}
+			// closed concurrently, so start afresh
+			sessions.remove(sessionId, session);
+		}
+	}
+	
+	/**
+	 * Closes the session, after any commands already sent to it have run.
+	 * @param sessionId
+	 * @return false if no such session
+	 */
+	@Override
+	public boolean close(String sessionId) {
+		Session session = sessions.remove(sessionId);
+		if (session == null) {
+			return false;
+		}
+		session.close();
+		return true;
+	}
+	
+	/**
+	 * Closes all sessions, after any commands already sent have run.
+	 */
+	@Override
+	public void closeAll() {
+		for (String sessionId: sessions.keySet()) {
+			close(sessionId);
+		}
+	}
+	
+	/**
+	 * @return ids of all open sessions
+	 */
+	@Override
+	public Set<String> sessionIds() {
+		return sessions.keySet();
+	}
+	
+	/**
+	 * @param sessionId
+	 * @param unit
+	 * @return time since the session last finished a command (or was created), or -1 if no such session
+	 */
+	public long idleTime(String sessionId, TimeUnit unit) {
+		Session session = sessions.get(sessionId);
+		if (session == null) {
+			return -1;
+		}
+		return unit.convert(System.nanoTime() - session.lastActiveNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @return whether sessions run on virtual threads
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+	
+	@Override
+	public int sessionCount() {
+		return sessions.size();
+	}
+	
+	/**
+	 * @return number of sessions currently holding a thread
+	 */
+	public int runningThreadCount() {
+		return runningThreads.get();
+	}
+	
+	/**
+	 * @return total number of session threads started
+	 */
+	public long threadStartCount() {
+		return threadStartCount.get();
+	}
+	
+	/**
+	 * @return total number of commands sent
+	 */
+	public long commandCount() {
+		return commandCount.get();
+	}
+	
+	private static ThreadFactory platformThreads() {
+		AtomicLong counter = new AtomicLong();
+		return task -> {
+			Thread thread = new Thread(task, "session-" + counter.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+	
+	/**
+	 * A single session, and the thread that runs it.
+	 */
+	private class Session {
+		private final String id;
+		private final Emulator emulator;
+		private final BlockingQueue<Command> commands = new LinkedBlockingQueue<>();
+		private final AtomicBoolean running = new AtomicBoolean();
+		private boolean closed = false; // guarded by 'this'
+		private volatile long lastActiveNanos = System.nanoTime();
+		
+		public Session(String id) {
+			this.id = id;
+			this.emulator = factory.get();
+		}
+		
+		/**
+		 * @return future result, or null if already closed
+		 */
+		public synchronized CompletableFuture<CommandResult> post(String text) {
+			if (closed) {
+				return null;
+			}
+			Command command = new Command(text);
+			commands.offer(command);
+			ensureRunning();
+			return command.result;
+		}
+		
+		public synchronized void close() {
+			if (!closed) {
+				closed = true;
+				commands.offer(Command.CLOSE);
+				ensureRunning();
+			}
+		}
+		
+		private void ensureRunning() {
+			if (running.compareAndSet(false, true)) {
+				runningThreads.incrementAndGet();
+				threadStartCount.incrementAndGet();
+				threadFactory.newThread(this::run).start();
+			}
+		}
+		
+		private void run() {
+			try {
+				while (true) {
+					Command command = (keepAliveNanos == 0) ? commands.take() :
+						commands.poll(keepAliveNanos, TimeUnit.NANOSECONDS);
+					if (command == null) {
+						// idle: release the thread, unless a command has just arrived
+						running.set(false);
+						if (commands.isEmpty() || !running.compareAndSet(false, true)) {
+							return;
+						}
+					}
+					else if (command == Command.CLOSE) {
+						LOG.debug("Session {} closed", id);
+						return;
+					}
+					else {
+						command.runOn(emulator);
+						lastActiveNanos = System.nanoTime();
+					}
+				}
+			} catch (InterruptedException e) {
+				// leave remaining commands for a new thread, as nothing else will start one until the next post
+				running.set(false);
+				if (!commands.isEmpty()) {
+					ensureRunning();
+				}
+				Thread.currentThread().interrupt();
+			} finally {
+				runningThreads.decrementAndGet();
+			}
+		}
+	}
+	
+	/**
+	 * A command waiting to be run by a session.
+	 */
+	private static class Command {
+		private static final Command CLOSE = new Command(null);
+		
+		private final String text;
+		private final CompletableFuture<CommandResult> result = new CompletableFuture<>();
+		
+		public Command(String text) {
+			this.text = text;
+		}
+		
+		public void runOn(Emulator emulator) {
+			try {
+				result.complete(emulator.execute(text));
+			} catch (RuntimeException | Error e) {
+				result.completeExceptionally(e);
+			}
+		}
+	}
+}
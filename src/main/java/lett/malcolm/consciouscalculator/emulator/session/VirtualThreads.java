@@ -0,0 +1,63 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.session;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Access to virtual threads, when running on a Java release that has them.
+ * 
+ * Looked up reflectively, as the project still builds for Java 8.
+ * 
+ * @author Malcolm Lett
+ */
+public final class VirtualThreads {
+	private static final Logger LOG = LoggerFactory.getLogger(VirtualThreads.class);
+	
+	private VirtualThreads() {
+	}
+	
+	/**
+	 * @return whether virtual threads are available
+	 */
+	public static boolean isAvailable() {
+		return factory("probe-") != null;
+	}
+	
+	/**
+	 * Creates a factory of virtual threads, named with the given prefix and a counter.
+	 * @param namePrefix
+	 * @return factory, or null if virtual threads aren't available
+	 */
+	public static ThreadFactory factory(String namePrefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Method name = builderClass.getMethod("name", String.class, long.class);
+			builder = name.invoke(builder, namePrefix, 0L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LOG.trace("Virtual threads not available: " + e);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,47 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.wm;
+
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
+
+/**
+ * Read-only access to the events within working memory that may be evicted,
+ * via the orderings that working memory already maintains.
+ * 
+ * All methods are O(1) or O(log n).
+ * 
+ * @author Malcolm Lett
+ */
+public interface EvictionCandidates {
+	/**
+	 * @return event with the lowest effective strength, or null if empty
+	 */
+	public Event weakest();
+	
+	/**
+	 * @return event that was least recently stored (added or replaced), or null if empty
+	 */
+	public Event oldest();
+	
+	/**
+	 * @param tag
+	 * @return event with the lowest effective strength having the given tag, or null if none
+	 */
+	public Event weakestTagged(EventTag tag);
+}
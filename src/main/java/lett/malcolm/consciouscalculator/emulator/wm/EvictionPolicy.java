@@ -0,0 +1,37 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.wm;
+
+import lett.malcolm.consciouscalculator.emulator.WorkingMemory;
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+
+/**
+ * Decides which events to evict when {@link WorkingMemory} exceeds its capacity.
+ * 
+ * Called repeatedly, once per eviction, until working memory is back within capacity.
+ * 
+ * @author Malcolm Lett
+ */
+public interface EvictionPolicy {
+	/**
+	 * Selects the next event to evict.
+	 * @param candidates the events currently within working memory
+	 * @return event to evict, or null to stop evicting
+	 */
+	public Event selectVictim(EvictionCandidates candidates);
+}
@@ -0,0 +1,60 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.wm;
+
+/**
+ * Degrades strengths by a fixed factor each tick, so that strengths approach zero
+ * but never cross it.
+ * 
+ * Ranks are calculated in log-space, to avoid overflow in long running sessions.
+ * Events stored with zero or negative strength all rank last, in the order they were stored.
+ * 
+ * @author Malcolm Lett
+ */
+public class ExponentialStrengthDecay implements StrengthDecay {
+	private final double factorPerTick;
+	private final double logFactorPerTick;
+	
+	/**
+	 * @param factorPerTick multiplier applied each tick, greater than 0.0 and no more than 1.0
+	 */
+	public ExponentialStrengthDecay(double factorPerTick) {
+		if (factorPerTick <= 0.0 || factorPerTick > 1.0) {
+			throw new IllegalArgumentException("Decay factor must be within (0.0, 1.0], got " + factorPerTick);
+		}
+		this.factorPerTick = factorPerTick;
+		this.logFactorPerTick = Math.log(factorPerTick);
+	}
+
+	@Override
+	public double strengthAfter(double strength, long ticks) {
+		return strength * Math.pow(factorPerTick, ticks);
+	}
+
+	@Override
+	public double rankOf(double strength, long tick) {
+		if (strength <= 0.0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return Math.log(strength) - logFactorPerTick * tick;
+	}
+	
+	public double factorPerTick() {
+		return factorPerTick;
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.wm;
+
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
+
+/**
+ * Evicts events that have already been dealt with first, on the basis that
+ * they are least likely to be needed again:
+ * <ol>
+ * <li>{@link EventTag#COMPLETED} events, weakest first,</li>
+ * <li>then {@link EventTag#HANDLED} events, weakest first,</li>
+ * <li>then whatever the fallback policy selects.</li>
+ * </ol>
+ * 
+ * @author Malcolm Lett
+ */
+public class HandledFirstEvictionPolicy implements EvictionPolicy {
+	private final EvictionPolicy fallback;
+	
+	public HandledFirstEvictionPolicy() {
+		this(new LowestStrengthEvictionPolicy());
+	}
+	
+	public HandledFirstEvictionPolicy(EvictionPolicy fallback) {
+		this.fallback = fallback;
+	}
+
+	@Override
+	public Event selectVictim(EvictionCandidates candidates) {
+		Event victim = candidates.weakestTagged(EventTag.COMPLETED);
+		if (victim == null) {
+			victim = candidates.weakestTagged(EventTag.HANDLED);
+		}
+		if (victim == null) {
+			victim = fallback.selectVictim(candidates);
+		}
+		return victim;
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.wm;
+
+/**
+ * Degrades strengths by a fixed amount each tick.
+ * 
+ * Strengths degrade without limit, and so can become negative.
+ * 
+ * @author Malcolm Lett
+ */
+public class LinearStrengthDecay implements StrengthDecay {
+	public static final double DEFAULT_AMOUNT_PER_TICK = 0.01;
+	
+	private final double amountPerTick;
+	
+	public LinearStrengthDecay() {
+		this(DEFAULT_AMOUNT_PER_TICK);
+	}
+	
+	public LinearStrengthDecay(double amountPerTick) {
+		this.amountPerTick = amountPerTick;
+	}
+
+	@Override
+	public double strengthAfter(double strength, long ticks) {
+		return strength - amountPerTick * ticks;
+	}
+
+	/**
+	 * Equivalent to the strength the event would have had at tick 0.
+	 */
+	@Override
+	public double rankOf(double strength, long tick) {
+		return strength + amountPerTick * tick;
+	}
+	
+	public double amountPerTick() {
+		return amountPerTick;
+	}
+}
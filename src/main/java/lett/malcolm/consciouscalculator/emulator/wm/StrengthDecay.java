@@ -0,0 +1,51 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.wm;
+
+import lett.malcolm.consciouscalculator.emulator.WorkingMemory;
+
+/**
+ * Decides how the strength of events within {@link WorkingMemory} degrades over time,
+ * with time measured in ticks.
+ * 
+ * Decay is applied lazily: working memory records the strength of each event when it is stored,
+ * along with the tick, and calculates the effective strength only when the event is next read.
+ * So implementations must be pure functions of their arguments.
+ * 
+ * @author Malcolm Lett
+ */
+public interface StrengthDecay {
+	/**
+	 * Calculates the effective strength of an event.
+	 * @param strength strength of the event when stored
+	 * @param ticks number of ticks since stored, 0 or more
+	 * @return effective strength
+	 */
+	public double strengthAfter(double strength, long ticks);
+	
+	/**
+	 * Calculates a rank that orders events by their effective strength, regardless of when they were stored.
+	 * 
+	 * At any tick, comparing the ranks of two events must give the same order as comparing their effective strengths.
+	 * This is what allows working memory to keep its events in priority order without re-sorting as they decay.
+	 * @param strength strength of the event when stored
+	 * @param tick tick at which the event was stored
+	 * @return rank, with higher values for stronger events
+	 */
+	public double rankOf(double strength, long tick);
+}
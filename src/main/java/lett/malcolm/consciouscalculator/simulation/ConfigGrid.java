@@ -0,0 +1,72 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import lett.malcolm.consciouscalculator.emulator.EmulatorConfig;
+
+/**
+ * Builds every combination of a set of parameter values, eg:
+ * <pre>
+ * List&lt;EmulatorConfig&gt; configs = new ConfigGrid(EmulatorConfig.DEFAULT)
+ *     .vary(EmulatorConfig::withStagnantTriggerTolerance, 3, 5, 8)
+ *     .vary(EmulatorConfig::withStrengthDecayPerTick, 0.005, 0.01, 0.02)
+ *     .configs();
+ * </pre>
+ * 
+ * @author Malcolm Lett
+ */
+public class ConfigGrid {
+	private List<EmulatorConfig> configs;
+	
+	/**
+	 * @param base values of all parameters not varied
+	 */
+	public ConfigGrid(EmulatorConfig base) {
+		this.configs = Collections.singletonList(base);
+	}
+	
+	/**
+	 * Multiplies the grid by the values of another parameter.
+	 * @param with setter for the parameter, such as {@link EmulatorConfig#withRequestStrength(double)}
+	 * @param values
+	 * @return this
+	 */
+	@SafeVarargs
+	public final <T> ConfigGrid vary(BiFunction<EmulatorConfig, T, EmulatorConfig> with, T... values) {
+		List<EmulatorConfig> result = new ArrayList<>(configs.size() * values.length);
+		for (EmulatorConfig config: configs) {
+			for (T value: values) {
+				result.add(with.apply(config, value));
+			}
+		}
+		configs = result;
+		return this;
+	}
+	
+	/**
+	 * @return every combination, in order varied
+	 */
+	public List<EmulatorConfig> configs() {
+		return Collections.unmodifiableList(configs);
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.simulation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics from a single simulation.
+ * 
+ * @author Malcolm Lett
+ */
+public class SimulationResult {
+	/**
+	 * Column names, matching {@link #toCsvRow()}.
+	 */
+	public static final String CSV_HEADER = "run,script,seed,commands,ticks,max_ticks_per_command,incomplete_commands,"
+			+ "outputs,checked_commands,correct_commands,wm_high_water,virtual_ms,elapsed_ms,cpu_ms";
+	
+	private final int run;
+	private final String script;
+	private final long seed;
+	private final int commands;
+	private final long ticks;
+	private final int maxTicksPerCommand;
+	private final int incompleteCommands;
+	private final long outputs;
+	private final int checkedCommands;
+	private final int correctCommands;
+	private final int workingMemoryHighWater;
+	private final long virtualMillis;
+	private final long elapsedNanos;
+	private final long cpuNanos;
+	
+	public SimulationResult(int run, String script, long seed, int commands, long ticks, int maxTicksPerCommand,
+			int incompleteCommands, long outputs, int checkedCommands, int correctCommands, int workingMemoryHighWater,
+			long virtualMillis, long elapsedNanos, long cpuNanos) {
+		this.run = run;
+		this.script = script;
+		this.seed = seed;
+		this.commands = commands;
+		this.ticks = ticks;
+		this.maxTicksPerCommand = maxTicksPerCommand;
+		this.incompleteCommands = incompleteCommands;
+		this.outputs = outputs;
+		this.checkedCommands = checkedCommands;
+		this.correctCommands = correctCommands;
+		this.workingMemoryHighWater = workingMemoryHighWater;
+		this.virtualMillis = virtualMillis;
+		this.elapsedNanos = elapsedNanos;
+		this.cpuNanos = cpuNanos;
+	}
+	
+	public int run() {
+		return run;
+	}
+	
+	public String script() {
+		return script;
+	}
+	
+	public long seed() {
+		return seed;
+	}
+	
+	public int commands() {
+		return commands;
+	}
+	
+	public long ticks() {
+		return ticks;
+	}
+	
+	public int maxTicksPerCommand() {
+		return maxTicksPerCommand;
+	}
+	
+	/**
+	 * @return number of commands stopped early by the tick budget
+	 */
+	public int incompleteCommands() {
+		return incompleteCommands;
+	}
+	
+	/**
+	 * @return number of things spoken
+	 */
+	public long outputs() {
+		return outputs;
+	}
+	
+	/**
+	 * @return number of commands with expected outputs
+	 */
+	public int checkedCommands() {
+		return checkedCommands;
+	}
+	
+	/**
+	 * @return number of commands whose outputs were exactly as expected
+	 */
+	public int correctCommands() {
+		return correctCommands;
+	}
+	
+	/**
+	 * @return proportion of checked commands that were correct, or NaN if none were checked
+	 */
+	public double accuracy() {
+		return (checkedCommands == 0) ? Double.NaN : (double) correctCommands / checkedCommands;
+	}
+	
+	/**
+	 * @return mean ticks per command, or NaN if there were no commands
+	 */
+	public double ticksPerCommand() {
+		return (commands == 0) ? Double.NaN : (double) ticks / commands;
+	}
+	
+	/**
+	 * @return most events held in working memory at the end of any tick
+	 */
+	public int workingMemoryHighWater() {
+		return workingMemoryHighWater;
+	}
+	
+	/**
+	 * @return time passed on the simulation's virtual clock
+	 */
+	public long virtualMillis() {
+		return virtualMillis;
+	}
+	
+	/**
+	 * @return real time taken
+	 */
+	public long elapsed(TimeUnit unit) {
+		return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @return CPU time taken by the simulation's thread, or -1 if not supported by the JVM
+	 */
+	public long cpuTime(TimeUnit unit) {
+		return (cpuNanos < 0) ? -1 : unit.convert(cpuNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @return values in the order of {@link #CSV_HEADER}
+	 */
+	public String toCsvRow() {
+		return run + "," + csvEscape(script) + "," + seed + "," + commands + "," + ticks + "," + maxTicksPerCommand + "," +
+				incompleteCommands + "," + outputs + "," + checkedCommands + "," + correctCommands + "," +
+				workingMemoryHighWater + "," + virtualMillis + "," + elapsed(TimeUnit.MILLISECONDS) + "," +
+				cpuTime(TimeUnit.MILLISECONDS);
+	}
+	
+	@Override
+	public String toString() {
+		return "SimulationResult{" + CSV_HEADER + "=" + toCsvRow() + "}";
+	}
+	
+	private static String csvEscape(String value) {
+		if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+			return "\"" + value.replace("\"", "\"\"") + "\"";
+		}
+		return value;
+	}
+}
@@ -0,0 +1,286 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.simulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import lett.malcolm.consciouscalculator.emulator.CommandResult;
+import lett.malcolm.consciouscalculator.emulator.Emulator;
+import lett.malcolm.consciouscalculator.emulator.EmulatorConfig;
+import lett.malcolm.consciouscalculator.emulator.events.SeededIdGenerator;
+import lett.malcolm.consciouscalculator.emulator.interfaces.TickListener;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.ManualClock;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.TickScheduler;
+
+/**
+ * Runs scripts of commands through emulators offline, as fast as they'll go,
+ * for batch experiments.
+ * 
+ * Each simulation gets a fresh emulator, with a virtual clock that moves on by a fixed
+ * amount each tick, and guids seeded by the simulation's index. So simulations are
+ * independent, and repeatable.
+ * Simulations run in parallel on a fork-join pool, each on a single thread.
+ * 
+ * Can be run from the command-line, without the web application:
+ * <pre>
+ * java -cp ... lett.malcolm.consciouscalculator.simulation.SimulationRunner script.txt [runs] [results.csv]
+ * </pre>
+ * 
+ * @author Malcolm Lett
+ */
+public class SimulationRunner {
+	public static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(10);
+	public static final long DEFAULT_BASE_SEED = 0;
+	
+	private final ForkJoinPool pool;
+	private Duration tickDuration = DEFAULT_TICK_DURATION;
+	private int tickBudget = TickScheduler.DEFAULT_TICK_BUDGET;
+	private long baseSeed = DEFAULT_BASE_SEED;
+	private EmulatorConfig config = EmulatorConfig.DEFAULT;
+	
+	/**
+	 * Runs on the common pool.
+	 */
+	public SimulationRunner() {
+		this(ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * @param pool pool to run simulations on, owned by the caller
+	 */
+	public SimulationRunner(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+	
+	/**
+	 * @param tickDuration how far the virtual clock moves on each tick
+	 */
+	public void setTickDuration(Duration tickDuration) {
+		this.tickDuration = tickDuration;
+	}
+	
+	/**
+	 * @param tickBudget maximum ticks per command, or 0 for unlimited
+	 */
+	public void setTickBudget(int tickBudget) {
+		this.tickBudget = tickBudget;
+	}
+	
+	/**
+	 * @param baseSeed seed of the first simulation, with each next simulation using the next seed
+	 */
+	public void setBaseSeed(long baseSeed) {
+		this.baseSeed = baseSeed;
+	}
+	
+	/**
+	 * @param config configuration of every emulator, defaults to {@link EmulatorConfig#DEFAULT}
+	 */
+	public void setConfig(EmulatorConfig config) {
+		this.config = config;
+	}
+	
+	/**
+	 * Runs the same script many times, in parallel.
+	 * @param script
+	 * @param count number of simulations
+	 * @return result of each simulation, in order
+	 */
+	public List<SimulationResult> runAll(SimulationScript script, int count) {
+		return runAll(Collections.nCopies(count, script));
+	}
+	
+	/**
+	 * Runs each script once, in parallel.
+	 * @param scripts
+	 * @return result of each simulation, in the order of the scripts
+	 */
+	public List<SimulationResult> runAll(List<SimulationScript> scripts) {
+		List<ForkJoinTask<SimulationResult>> tasks = new ArrayList<>(scripts.size());
+		for (int i = 0; i < scripts.size(); i++) {
+			int run = i;
+			SimulationScript script = scripts.get(i);
+			tasks.add(pool.submit(() -> run(run, script)));
+		}
+		
+		List<SimulationResult> results = new ArrayList<>(tasks.size());
+		for (ForkJoinTask<SimulationResult> task: tasks) {
+			results.add(task.join());
+		}
+		return results;
+	}
+	
+	/**
+	 * Runs a single simulation, on the calling thread.
+	 * @param run index of the simulation, which determines its seed
+	 * @param script
+	 * @return result
+	 */
+	public SimulationResult run(int run, SimulationScript script) {
+		return simulate(run, baseSeed + run, script, config);
+	}
+	
+	/**
+	 * Runs a single simulation, on the calling thread, checking any expected outputs.
+	 * @param run index of the simulation, only for reporting
+	 * @param seed seed for guid generation
+	 * @param script
+	 * @param config
+	 * @return result
+	 */
+	public SimulationResult simulate(int run, long seed, SimulationScript script, EmulatorConfig config) {
+		ManualClock clock = new ManualClock(Instant.EPOCH);
+		Emulator emulator = new Emulator(clock, config);
+		emulator.setTickScheduler(new TickScheduler(tickBudget, 0, TimeUnit.MILLISECONDS, 0));
+		emulator.setIdGenerator(new SeededIdGenerator(seed));
+		Tracker tracker = new Tracker(emulator, clock, tickDuration);
+		emulator.setTickListener(tracker);
+		
+		long ticks = 0;
+		int maxTicksPerCommand = 0;
+		int incompleteCommands = 0;
+		long outputs = 0;
+		int checkedCommands = 0;
+		int correctCommands = 0;
+		long startCpu = cpuTime();
+		long start = System.nanoTime();
+		for (int i = 0; i < script.commands().size(); i++) {
+			CommandResult result = emulator.execute(script.commands().get(i));
+			ticks += result.ticks();
+			maxTicksPerCommand = Math.max(maxTicksPerCommand, result.ticks());
+			outputs += result.spoken().size();
+			if (!result.isComplete()) {
+				incompleteCommands++;
+			}
+			
+			List<String> expected = script.expectations().get(i);
+			if (expected != null) {
+				checkedCommands++;
+				if (result.spoken().equals(expected)) {
+					correctCommands++;
+				}
+			}
+		}
+		long elapsedNanos = System.nanoTime() - start;
+		long cpuNanos = (startCpu < 0) ? -1 : cpuTime() - startCpu;
+		
+		return new SimulationResult(run, script.name(), seed, script.commands().size(), ticks, maxTicksPerCommand,
+				incompleteCommands, outputs, checkedCommands, correctCommands, tracker.workingMemoryHighWater,
+				Duration.between(Instant.EPOCH, clock.instant()).toMillis(), elapsedNanos, cpuNanos);
+	}
+	
+	/**
+	 * @param results
+	 * @param out written with a header row, and then a row per result, but not closed
+	 * @throws IOException
+	 */
+	public static void writeCsv(List<SimulationResult> results, Writer out) throws IOException {
+		out.write(SimulationResult.CSV_HEADER);
+		out.write("\n");
+		for (SimulationResult result: results) {
+			out.write(result.toCsvRow());
+			out.write("\n");
+		}
+		out.flush();
+	}
+	
+	/**
+	 * @param args script file, optional number of runs (default 1), and optional CSV file (default stdout)
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1 || args.length > 3) {
+			System.err.println("Usage: SimulationRunner <script-file> [runs] [csv-file]");
+			System.exit(2);
+		}
+		SimulationScript script = SimulationScript.load(Paths.get(args[0]));
+		int runs = (args.length > 1) ? Integer.parseInt(args[1]) : 1;
+		
+		// logging is far more costly than the simulation itself
+		LoggerContext lc = (LoggerContext) LoggerFactory.getILoggerFactory();
+		lc.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.OFF);
+		
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		List<SimulationResult> results;
+		try {
+			results = new SimulationRunner(pool).runAll(script, runs);
+		} finally {
+			pool.shutdown();
+		}
+		
+		if (args.length > 2) {
+			try (Writer out = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+				writeCsv(results, out);
+			}
+		}
+		else {
+			writeCsv(results, new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+		}
+	}
+	
+	/**
+	 * @return CPU time of the current thread, or -1 if not supported
+	 */
+	private static long cpuTime() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+	}
+	
+	/**
+	 * Moves the virtual clock on after each tick, and tracks working memory.
+	 */
+	private static class Tracker implements TickListener {
+		private final Emulator emulator;
+		private final ManualClock clock;
+		private final Duration tickDuration;
+		private int workingMemoryHighWater = 0;
+		
+		public Tracker(Emulator emulator, ManualClock clock, Duration tickDuration) {
+			this.emulator = emulator;
+			this.clock = clock;
+			this.tickDuration = tickDuration;
+		}
+		
+		@Override
+		public void afterTick(int tick) {
+			clock.advance(tickDuration);
+			workingMemoryHighWater = Math.max(workingMemoryHighWater, emulator.workingMemorySize());
+		}
+	}
+}
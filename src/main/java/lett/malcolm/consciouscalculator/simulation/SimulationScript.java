@@ -0,0 +1,150 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.simulation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Sequence of commands to send to an emulator, one after another.
+ * 
+ * Script files have one command per line. Blank lines, and lines starting with '#', are ignored.
+ * A command may be followed by "=&gt;" and its expected outputs, several separated by '|', eg:
+ * <pre>
+ * 3 + 5 =&gt; 8
+ * 3 + 5 = 9 =&gt; false
+ * 3 + 5 = 8 =&gt; true | yes
+ * </pre>
+ * 
+ * @author Malcolm Lett
+ */
+public class SimulationScript {
+	private static final String EXPECTATION_SEPARATOR = "=>";
+	private static final String OUTPUT_SEPARATOR = "|";
+	
+	private final String name;
+	private final List<String> commands;
+	private final List<List<String>> expectations;
+	
+	/**
+	 * With no expected outputs.
+	 * @param name
+	 * @param commands
+	 */
+	public SimulationScript(String name, List<String> commands) {
+		this(name, commands, Collections.nCopies(commands.size(), null));
+	}
+	
+	/**
+	 * @param name
+	 * @param commands
+	 * @param expectations expected outputs of each command, or null where not checked
+	 */
+	public SimulationScript(String name, List<String> commands, List<List<String>> expectations) {
+		if (commands.size() != expectations.size()) {
+			throw new IllegalArgumentException("Expected " + commands.size() + " expectations, got " + expectations.size());
+		}
+		this.name = name;
+		this.commands = Collections.unmodifiableList(new ArrayList<>(commands));
+		this.expectations = Collections.unmodifiableList(new ArrayList<>(expectations));
+	}
+	
+	public static SimulationScript of(String... commands) {
+		return new SimulationScript("inline", Arrays.asList(commands));
+	}
+	
+	/**
+	 * @param file UTF-8 script file
+	 * @return script named after the file
+	 * @throws IOException
+	 */
+	public static SimulationScript load(Path file) throws IOException {
+		try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			return parse(file.getFileName().toString(), in);
+		}
+	}
+	
+	/**
+	 * @param name
+	 * @param in script content, not closed
+	 * @return script
+	 * @throws IOException
+	 */
+	public static SimulationScript parse(String name, Reader in) throws IOException {
+		List<String> commands = new ArrayList<>();
+		List<List<String>> expectations = new ArrayList<>();
+		BufferedReader reader = new BufferedReader(in);
+		String line;
+		while ((line = reader.readLine()) != null) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			
+			int separator = line.indexOf(EXPECTATION_SEPARATOR);
+			if (separator < 0) {
+				commands.add(line);
+				expectations.add(null);
+			}
+			else {
+				commands.add(line.substring(0, separator).trim());
+				expectations.add(parseOutputs(line.substring(separator + EXPECTATION_SEPARATOR.length())));
+			}
+		}
+		return new SimulationScript(name, commands, expectations);
+	}
+	
+	public String name() {
+		return name;
+	}
+	
+	public List<String> commands() {
+		return commands;
+	}
+	
+	/**
+	 * @return expected outputs of each command, in the same order as the commands, or null where not checked
+	 */
+	public List<List<String>> expectations() {
+		return expectations;
+	}
+	
+	@Override
+	public String toString() {
+		return "SimulationScript{" + name + ": " + commands.size() + " commands}";
+	}
+	
+	private static List<String> parseOutputs(String text) {
+		List<String> outputs = new ArrayList<>();
+		if (!text.trim().isEmpty()) {
+			for (String output: text.split(Pattern.quote(OUTPUT_SEPARATOR))) {
+				outputs.add(output.trim());
+			}
+		}
+		return outputs;
+	}
+}
@@ -0,0 +1,67 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.simulation;
+
+import java.util.concurrent.TimeUnit;
+
+import lett.malcolm.consciouscalculator.emulator.EmulatorConfig;
+
+/**
+ * Outcome of running a corpus of commands under one configuration.
+ * 
+ * @author Malcolm Lett
+ */
+public class SweepResult {
+	/**
+	 * Column names, matching {@link #toCsvRow()}.
+	 */
+	public static final String CSV_HEADER = EmulatorConfig.CSV_HEADER +
+			",accuracy,ticks_per_command,incomplete_commands,wm_high_water,cpu_ms,cpu_us_per_command";
+	
+	private final EmulatorConfig config;
+	private final SimulationResult result;
+	
+	public SweepResult(EmulatorConfig config, SimulationResult result) {
+		this.config = config;
+		this.result = result;
+	}
+	
+	public EmulatorConfig config() {
+		return config;
+	}
+	
+	public SimulationResult result() {
+		return result;
+	}
+	
+	/**
+	 * @return values in the order of {@link #CSV_HEADER}
+	 */
+	public String toCsvRow() {
+		long cpuMicros = result.cpuTime(TimeUnit.MICROSECONDS);
+		return config.toCsvRow() + "," + result.accuracy() + "," + result.ticksPerCommand() + "," +
+				result.incompleteCommands() + "," + result.workingMemoryHighWater() + "," +
+				result.cpuTime(TimeUnit.MILLISECONDS) + "," +
+				((cpuMicros < 0 || result.commands() == 0) ? -1 : cpuMicros / result.commands());
+	}
+	
+	@Override
+	public String toString() {
+		return "SweepResult{" + CSV_HEADER + "=" + toCsvRow() + "}";
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.simulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import lett.malcolm.consciouscalculator.emulator.EmulatorConfig;
+
+/**
+ * Evaluates a grid of configurations over the same corpus of commands, in parallel,
+ * reporting accuracy against the corpus' expected outputs, alongside cost.
+ * 
+ * Every configuration runs with the same seed, so differences come from the configuration alone.
+ * Tick duration and budget are as per the given {@link SimulationRunner}.
+ * 
+ * @author Malcolm Lett
+ * @see ConfigGrid
+ */
+public class SweepRunner {
+	private final SimulationRunner runner;
+	private final ForkJoinPool pool;
+	private long seed = SimulationRunner.DEFAULT_BASE_SEED;
+	
+	/**
+	 * @param runner runs each configuration
+	 * @param pool pool to run configurations on, owned by the caller
+	 */
+	public SweepRunner(SimulationRunner runner, ForkJoinPool pool) {
+		this.runner = runner;
+		this.pool = pool;
+	}
+	
+	/**
+	 * @param seed seed for guid generation, the same for every configuration
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * @param configs configurations to evaluate
+	 * @param corpus commands, preferably with expected outputs
+	 * @return result for each configuration, in the same order
+	 */
+	public List<SweepResult> sweep(List<EmulatorConfig> configs, SimulationScript corpus) {
+		List<ForkJoinTask<SimulationResult>> tasks = new ArrayList<>(configs.size());
+		for (int i = 0; i < configs.size(); i++) {
+			int run = i;
+			EmulatorConfig config = configs.get(i);
+			tasks.add(pool.submit(() -> runner.simulate(run, seed, corpus, config)));
+		}
+		
+		List<SweepResult> results = new ArrayList<>(tasks.size());
+		for (int i = 0; i < tasks.size(); i++) {
+			results.add(new SweepResult(configs.get(i), tasks.get(i).join()));
+		}
+		return results;
+	}
+	
+	/**
+	 * @param results
+	 * @param out written with a header row, and then a row per result, but not closed
+	 * @throws IOException
+	 */
+	public static void writeCsv(List<SweepResult> results, Writer out) throws IOException {
+		out.write(SweepResult.CSV_HEADER);
+		out.write("\n");
+		for (SweepResult result: results) {
+			out.write(result.toCsvRow());
+			out.write("\n");
+		}
+		out.flush();
+	}
+}
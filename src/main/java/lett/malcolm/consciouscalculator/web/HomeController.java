@@ -19,19 +19,28 @@ package lett.malcolm.consciouscalculator.web;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
-import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.server.ResponseStatusException;
 
 import lett.malcolm.consciouscalculator.emulator.Emulator;
+import lett.malcolm.consciouscalculator.emulator.EmulatorPool;
 import lett.malcolm.consciouscalculator.logging.NotifyingLogbackAppender;
 
 /**
@@ -42,10 +51,18 @@ public class HomeController {
 	private static final Logger LOG = LoggerFactory.getLogger(HomeController.class);
 	
 	private NotifyingLogbackAppender notifyingLogbackAppender;
+	private EmulatorPool emulatorPool;
+	private Executor emulatorExecutor;
+	private long borrowTimeoutMs;
 
 	@Autowired
-	public HomeController(NotifyingLogbackAppender notifyingLogbackAppender) {
+	public HomeController(NotifyingLogbackAppender notifyingLogbackAppender, EmulatorPool emulatorPool,
+			@Qualifier("emulatorExecutor") Executor emulatorExecutor,
+			@Value("${emulator.pool.borrow-timeout-ms}") long borrowTimeoutMs) {
 		this.notifyingLogbackAppender = notifyingLogbackAppender;
+		this.emulatorPool = emulatorPool;
+		this.emulatorExecutor = emulatorExecutor;
+		this.borrowTimeoutMs = borrowTimeoutMs;
 	}
 
 	@RequestMapping("/")
@@ -53,30 +70,63 @@ public class HomeController {
 		return "home";
 	}
 
+	/**
+	 * Runs the command on the emulator executor, once an emulator is free,
+	 * so that the request thread is freed while waiting for and running the emulator.
+	 */
 	@PostMapping("/command")
-	String runCommand(@RequestParam("message") String message, Model model) {
+	CompletableFuture<ModelAndView> runCommand(@RequestParam("message") String message) {
 		LOG.info("message: {}", message);
 		
-		// prepare to track logs
+		// prepare to track logs, from whichever thread the emulator runs on
 		LogCaptures logCaptures = new LogCaptures();
-		try {
+		Executor capturingExecutor = task -> emulatorExecutor.execute(() -> {
 			notifyingLogbackAppender.addListener(logCaptures, Thread.currentThread().getName());
-			
-			// Start up Emulator
-			Emulator emulator = new Emulator();
-			emulator.sendCommand(message);
-			
-			// grab logs
-			List<String> events = logCaptures.events;
-			System.out.println("Found events: " + events.size());
-			events.forEach((it) -> System.out.println(">>> " + it));
-		} finally {
-			notifyingLogbackAppender.removeListener(logCaptures);
-		}
+			try {
+				task.run();
+			} finally {
+				notifyingLogbackAppender.removeListener(logCaptures);
+			}
+		});
 		
-		model.addAttribute("hasResult", true);
-		model.addAttribute("events", logCaptures.events);
-		return "home";
+		// Start up Emulator
+		return borrowEmulator()
+				.thenCompose(emulator -> emulator.submit(message, capturingExecutor)
+						.whenComplete((result, error) -> emulatorPool.release(emulator)))
+				.thenApply(result -> {
+					if (!result.isComplete()) {
+						LOG.warn("Partial result for message: {}: {}", message, result);
+					}
+					
+					// grab logs
+					List<String> events = logCaptures.events;
+					LOG.debug("Found {} events", events.size());
+					
+					ModelAndView modelAndView = new ModelAndView("home");
+					modelAndView.addObject("hasResult", true);
+					modelAndView.addObject("events", events);
+					modelAndView.addObject("complete", result.isComplete());
+					return modelAndView;
+				});
+	}
+	
+	/**
+	 * @return future emulator, without blocking the request thread
+	 */
+	private CompletableFuture<Emulator> borrowEmulator() {
+		CompletableFuture<Emulator> result = new CompletableFuture<>();
+		emulatorPool.borrowAsync(borrowTimeoutMs, TimeUnit.MILLISECONDS).whenComplete((emulator, error) -> {
+			if (error instanceof TimeoutException) {
+				result.completeExceptionally(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "All emulators are busy, try again later", error));
+			}
+			else if (error != null) {
+				result.completeExceptionally(error);
+			}
+			else {
+				result.complete(emulator);
+			}
+		});
+		return result;
 	}
 	
 	private static class LogCaptures implements Consumer<String> {
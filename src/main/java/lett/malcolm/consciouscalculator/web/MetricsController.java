@@ -0,0 +1,78 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.web;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lett.malcolm.consciouscalculator.emulator.EmulatorPool;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.StopReason;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.TickScheduler;
+import lett.malcolm.consciouscalculator.utils.MapBuilder;
+
+/**
+ * Exposes runtime metrics as JSON.
+ */
+@RestController
+public class MetricsController {
+	private EmulatorPool emulatorPool;
+	private TickScheduler tickScheduler;
+
+	@Autowired
+	public MetricsController(EmulatorPool emulatorPool, TickScheduler tickScheduler) {
+		this.emulatorPool = emulatorPool;
+		this.tickScheduler = tickScheduler;
+	}
+	
+	@GetMapping("/metrics/emulator-pool")
+	Map<String, Object> emulatorPool() {
+		return MapBuilder.aDataMap()
+				.with("maxSize", emulatorPool.maxSize())
+				.with("size", emulatorPool.size())
+				.with("idle", emulatorPool.idleCount())
+				.with("borrowed", emulatorPool.borrowedCount())
+				.with("borrowCount", emulatorPool.borrowCount())
+				.with("waitCount", emulatorPool.waitCount())
+				.with("timeoutCount", emulatorPool.timeoutCount())
+				.with("totalWaitMs", emulatorPool.totalWaitTime(TimeUnit.MILLISECONDS))
+				.with("maxWaitMs", emulatorPool.maxWaitTime(TimeUnit.MILLISECONDS))
+				.build();
+	}
+	
+	@GetMapping("/metrics/tick-scheduler")
+	Map<String, Object> tickScheduler() {
+		Map<String, Object> stops = new LinkedHashMap<>();
+		for (StopReason reason: StopReason.values()) {
+			stops.put(reason.name(), tickScheduler.stopCount(reason));
+		}
+		
+		return MapBuilder.aDataMap()
+				.with("tickBudget", tickScheduler.tickBudget())
+				.with("deadlineMs", tickScheduler.deadline(TimeUnit.MILLISECONDS))
+				.with("runCount", tickScheduler.runCount())
+				.with("tickCount", tickScheduler.tickCount())
+				.with("maxTicksPerRun", tickScheduler.maxTicksPerRun())
+				.with("stopCounts", stops)
+				.build();
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * @author Malcolm Lett
+ */
+public class EmulatorPoolTests {
+	@Test
+	public void reusesReleasedEmulator() throws InterruptedException {
+		EmulatorPool pool = new EmulatorPool(2);
+		Emulator first = pool.borrow(0, TimeUnit.MILLISECONDS);
+		first.sendCommand("3 + 5");
+		pool.release(first);
+		
+		Emulator second = pool.borrow(0, TimeUnit.MILLISECONDS);
+		assertThat(second, is(sameInstance(first)));
+		assertThat(pool.size(), is(1));
+		assertThat(pool.borrowedCount(), is(1));
+		assertThat(pool.borrowCount(), is(2L));
+	}
+	
+	@Test
+	public void timesOutWhenAllBorrowed() throws InterruptedException {
+		EmulatorPool pool = new EmulatorPool(1);
+		Emulator first = pool.borrow(0, TimeUnit.MILLISECONDS);
+		
+		assertThat(pool.borrow(10, TimeUnit.MILLISECONDS), is(nullValue()));
+		assertThat(pool.size(), is(1));
+		assertThat(pool.waitCount(), is(1L));
+		assertThat(pool.timeoutCount(), is(1L));
+		
+		pool.release(first);
+		assertThat(pool.idleCount(), is(1));
+		assertThat(pool.borrowedCount(), is(0));
+	}
+	
+	@Test
+	public void asyncBorrowWaitsForRelease() throws Exception {
+		EmulatorPool pool = new EmulatorPool(1);
+		Emulator first = pool.borrowAsync(0, TimeUnit.MILLISECONDS).get(1, TimeUnit.SECONDS);
+		
+		CompletableFuture<Emulator> second = pool.borrowAsync(10, TimeUnit.SECONDS);
+		assertThat(second.isDone(), is(false));
+		assertThat(pool.waitCount(), is(1L));
+		
+		pool.release(first);
+		assertThat(second.get(1, TimeUnit.SECONDS), is(sameInstance(first)));
+		assertThat(pool.idleCount(), is(0));
+		assertThat(pool.borrowedCount(), is(1));
+		assertThat(pool.borrowCount(), is(2L));
+	}
+	
+	@Test
+	public void asyncBorrowTimesOut() throws Exception {
+		EmulatorPool pool = new EmulatorPool(1);
+		Emulator first = pool.borrowAsync(0, TimeUnit.MILLISECONDS).get(1, TimeUnit.SECONDS);
+		
+		CompletableFuture<Emulator> second = pool.borrowAsync(10, TimeUnit.MILLISECONDS);
+		try {
+			second.get(1, TimeUnit.SECONDS);
+			fail("Expected timeout");
+		} catch (ExecutionException e) {
+			assertThat(e.getCause(), is(instanceOf(TimeoutException.class)));
+		}
+		assertThat(pool.timeoutCount(), is(1L));
+		
+		// released to the pool, rather than the borrower that gave up
+		pool.release(first);
+		assertThat(pool.idleCount(), is(1));
+		assertThat(pool.borrowedCount(), is(0));
+	}
+	
+	@Test
+	public void replacesEmulatorThatFailsResetForBlockedBorrower() throws Exception {
+		AtomicInteger resets = new AtomicInteger();
+		EmulatorPool pool = new EmulatorPool(1, () -> new Emulator() {
+			@Override
+			public void reset() {
+				if (resets.incrementAndGet() == 1) {
+					throw new IllegalStateException("Broken");
+				}
+				super.reset();
+			}
+		});
+		Emulator first = pool.borrow(0, TimeUnit.MILLISECONDS);
+		
+		CompletableFuture<Emulator> second = CompletableFuture.supplyAsync(() -> {
+			try {
+				return pool.borrow(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		awaitWaiting(pool, 1);
+		
+		pool.release(first);
+		Emulator replacement = second.get(1, TimeUnit.SECONDS);
+		assertThat(replacement, is(not(nullValue())));
+		assertThat(replacement, is(not(sameInstance(first))));
+		assertThat(pool.size(), is(1));
+		assertThat(pool.timeoutCount(), is(0L));
+	}
+	
+	@Test
+	public void servesBlockedAndAsyncBorrowersInOrder() throws Exception {
+		EmulatorPool pool = new EmulatorPool(1);
+		Emulator first = pool.borrow(0, TimeUnit.MILLISECONDS);
+		
+		CompletableFuture<Emulator> blocked = CompletableFuture.supplyAsync(() -> {
+			try {
+				return pool.borrow(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		awaitWaiting(pool, 1);
+		CompletableFuture<Emulator> async = pool.borrowAsync(10, TimeUnit.SECONDS);
+		
+		pool.release(first);
+		assertThat(blocked.get(1, TimeUnit.SECONDS), is(sameInstance(first)));
+		assertThat(async.isDone(), is(false));
+		
+		pool.release(first);
+		assertThat(async.get(1, TimeUnit.SECONDS), is(sameInstance(first)));
+	}
+	
+	private static void awaitWaiting(EmulatorPool pool, long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 1000;
+		while (pool.waitCount() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(pool.waitCount(), is(count));
+	}
+}
@@ -0,0 +1,226 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import lett.malcolm.consciouscalculator.emulator.events.DataRules;
+import lett.malcolm.consciouscalculator.emulator.events.SeededIdGenerator;
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.ManualClock;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.StopReason;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.TickScheduler;
+import lett.malcolm.consciouscalculator.emulator.output.OutputChannel.Cursor;
+import lett.malcolm.consciouscalculator.emulator.output.SlowConsumerPolicy;
+
+/**
+ * @author Malcolm Lett
+ */
+public class EmulatorTests {
+	@Test
+	public void returnsSpokenOutput() {
+		Emulator emulator = new Emulator();
+		assertThat(emulator.sendCommand("3 + 5"), contains("8"));
+		assertThat(emulator.sendCommand("3 + 5 = 9"), contains("false"));
+	}
+	
+	@Test
+	public void stopsOnceQuiescent() {
+		Emulator emulator = new Emulator();
+		CommandResult result = emulator.execute("3 + 5");
+		assertThat(result.spoken(), contains("8"));
+		assertThat(result.stopReason(), is(StopReason.QUIESCENT));
+		assertThat(result.isComplete(), is(true));
+	}
+	
+	@Test
+	public void stopsEarlyWhenTickBudgetExhausted() {
+		TickScheduler scheduler = new TickScheduler(2, 0, TimeUnit.MILLISECONDS, 0);
+		Emulator emulator = new Emulator();
+		emulator.setTickScheduler(scheduler);
+		
+		CommandResult result = emulator.execute("3 + 5");
+		assertThat(result.isComplete(), is(false));
+		assertThat(result.stopReason(), is(StopReason.TICK_BUDGET));
+		assertThat(result.ticks(), is(2));
+		assertThat(scheduler.stopCount(StopReason.TICK_BUDGET), is(1L));
+	}
+	
+	@Test
+	public void restoresCapturedState() {
+		Emulator original = new Emulator();
+		original.sendCommand("3 + 5");
+		EmulatorState state = original.captureState();
+		
+		Emulator restored = new Emulator();
+		restored.restoreState(state);
+		assertThat(guidsOf(restored.snapshot().workingMemory()), is(guidsOf(original.snapshot().workingMemory())));
+		assertThat(guidsOf(restored.snapshot().shortTermMemory()), is(guidsOf(original.snapshot().shortTermMemory())));
+		assertThat(restored.sendCommand("3 + 5 = 8"), contains("true"));
+	}
+	
+	@Test
+	public void restoresCheckpoint() throws IOException {
+		Emulator original = new Emulator();
+		original.sendCommand("3 + 5");
+		ByteArrayOutputStream checkpoint = new ByteArrayOutputStream();
+		original.checkpoint(checkpoint);
+		
+		Emulator restored = new Emulator();
+		restored.restore(new ByteArrayInputStream(checkpoint.toByteArray()));
+		assertThat(guidsOf(restored.snapshot().workingMemory()), is(guidsOf(original.snapshot().workingMemory())));
+		assertThat(guidsOf(restored.snapshot().shortTermMemory()), is(guidsOf(original.snapshot().shortTermMemory())));
+		assertThat(restored.sendCommand("3 + 5 = 8"), contains("true"));
+	}
+	
+	@Test
+	public void checkpointIsSmallerThanSerializedState() throws IOException {
+		Emulator emulator = new Emulator();
+		emulator.sendCommand("3 + 5");
+		ByteArrayOutputStream checkpoint = new ByteArrayOutputStream();
+		emulator.checkpoint(checkpoint);
+		ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+			out.writeObject(emulator.captureState());
+		}
+		
+		assertThat(checkpoint.size(), is(lessThan(serialized.size() / 2)));
+	}
+	
+	@Test
+	public void restoredEventsTakeEmulatorClock() throws Exception {
+		ManualClock clock = new ManualClock(Instant.parse("2019-10-01T00:00:00Z"));
+		Emulator original = new Emulator(clock);
+		original.sendCommand("3 + 5");
+		
+		// clocks aren't serializable, so this also shows that events don't carry theirs
+		ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+			out.writeObject(original.captureState());
+		}
+		EmulatorState state;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized.toByteArray()))) {
+			state = (EmulatorState) in.readObject();
+		}
+		
+		Emulator restored = new Emulator(new ManualClock(clock.instant().plusSeconds(60)));
+		restored.restoreState(state);
+		Event event = restored.snapshot().workingMemory().get(0);
+		assertThat(event.toString(), containsString("," + String.format("%.1fs", 60.0) + ","));
+	}
+	
+	@Test
+	public void broadcastsSpokenOutput() {
+		Emulator emulator = new Emulator();
+		Cursor first = emulator.getOutput().subscribe(SlowConsumerPolicy.DROP);
+		Cursor second = emulator.getOutput().subscribe(SlowConsumerPolicy.DROP);
+		emulator.sendCommand("3 + 5");
+		
+		assertThat(first.poll(), is("8"));
+		assertThat(second.poll(), is("8"));
+		assertThat(first.poll(), is(nullValue()));
+		
+		emulator.reset();
+		assertThat(first.isClosed(), is(true));
+	}
+	
+	@Test
+	public void runsSubmittedCommandsInOrder() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Emulator emulator = new Emulator();
+			CompletableFuture<CommandResult> first = emulator.submit("3 + 5", executor);
+			CompletableFuture<CommandResult> second = emulator.submit("3 + 5 = 8", executor);
+			
+			assertThat(first.get(10, TimeUnit.SECONDS).spoken(), contains("8"));
+			assertThat(second.get(10, TimeUnit.SECONDS).spoken(), contains("true"));
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void parallelProcessingMatchesSequential() {
+		List<String> commands = Arrays.asList("3 + 5", "3 + 5 = 9", "3 + 5 = 8", "3 + 5 = 8");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int seed = 0; seed < 3; seed++) {
+				Emulator sequential = new Emulator();
+				sequential.setIdGenerator(new SeededIdGenerator(seed));
+				Emulator parallel = new Emulator();
+				parallel.setIdGenerator(new SeededIdGenerator(seed));
+				parallel.setProcessorPool(pool);
+				
+				for (String command: commands) {
+					CommandResult expected = sequential.execute(command);
+					CommandResult actual = parallel.execute(command);
+					assertThat(command, actual.spoken(), is(expected.spoken()));
+					assertThat(command, actual.ticks(), is(expected.ticks()));
+					assertThat(command, actual.stopReason(), is(expected.stopReason()));
+					
+					// guids differ, as parallel processors take them in whichever order they run
+					assertThat(command, describe(parallel.snapshot().workingMemory()),
+							is(describe(sequential.snapshot().workingMemory())));
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Describes events in full, but with guids masked out.
+	 */
+	private static List<String> describe(List<Event> events) {
+		return events.stream()
+			.map(e -> e.getClass().getSimpleName() + "," +
+				String.format("%.6f", e.strength()) + "," +
+				new TreeSet<>(e.tags()) + "," +
+				e.references().stream().map(EmulatorTests::maskGuids).sorted().collect(Collectors.toList()) + "," +
+				maskGuids(DataRules.stringOf(e.data())))
+			.collect(Collectors.toList());
+	}
+	
+	private static String maskGuids(String text) {
+		return text.replaceAll("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}", "<guid>")
+				.replaceAll("\\b[0-9a-f]{5}\\b", "<guid>");
+	}
+	
+	private static List<String> guidsOf(List<Event> events) {
+		return events.stream().map(Event::guid).collect(Collectors.toList());
+	}
+}
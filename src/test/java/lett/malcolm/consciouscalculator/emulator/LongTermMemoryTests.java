@@ -23,6 +23,7 @@ import static org.hamcrest.Matchers.*;
 
 import java.time.Clock;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -31,6 +32,8 @@ import java.util.stream.Collectors;
 import org.junit.Before;
 import org.junit.Test;
 
+import lett.malcolm.consciouscalculator.emulator.events.MemoryEvent;
+import lett.malcolm.consciouscalculator.emulator.events.MemorySearchRequestEvent;
 import lett.malcolm.consciouscalculator.emulator.events.PerceptEvent;
 import lett.malcolm.consciouscalculator.emulator.facts.ExpressionFact;
 import lett.malcolm.consciouscalculator.emulator.facts.NameFact;
@@ -38,6 +41,7 @@ import lett.malcolm.consciouscalculator.emulator.facts.NumberFact;
 import lett.malcolm.consciouscalculator.emulator.facts.OperatorFact;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
 import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
+import lett.malcolm.consciouscalculator.emulator.processors.LongTermMemorySearchProcessor;
 
 public class LongTermMemoryTests {
 	private LongTermMemory memory;
@@ -72,6 +76,26 @@ public class LongTermMemoryTests {
 		assertThat(((Percept) memory.get(NumberFact.GUID).data()).references(), is(setOf("NumberFact.Name")));
 	}
 
+	@Test
+	public void sharesPreprogrammedFactsBetweenInstances() {
+		LongTermMemory other = new LongTermMemory(clock, 10000);
+		assertThat(other.get(NumberFact.GUID), is(sameInstance(memory.get(NumberFact.GUID))));
+	}
+	
+	@Test
+	public void keepsStoredEventsSeparateBetweenInstances() {
+		LongTermMemory other = new LongTermMemory(clock, 10000);
+		Event event = new PerceptEvent(clock, new Percept(NumberFact.GUID, 3));
+		memory.store(event);
+		
+		assertThat(memory.get(event.guid()), is(sameInstance(event)));
+		assertThat(other.get(event.guid()), is(nullValue()));
+		
+		memory.reset();
+		assertThat(memory.get(event.guid()), is(nullValue()));
+		assertThat(memory.get(NumberFact.GUID), is(not(nullValue())));
+	}
+	
 	// found: [PerceptEvent{NumberFact,20ms,0.000,Percept{NumberFact,ref=NumberFact.Name,null}}]
 	@Test
 	public void findsNumberFactByEvent() {
@@ -125,6 +149,22 @@ public class LongTermMemoryTests {
 		assertThat("Expected nothing other than Number/Operator/Expression facts", found, is(empty()));
 	}
 
+	@Test
+	public void searchProcessorFindsWhatIsLearnedLater() {
+		Event learned = new PerceptEvent(clock, new Percept(NumberFact.GUID, 3));
+		WorkingMemory workingMemory = new WorkingMemory(10);
+		workingMemory.store(new MemorySearchRequestEvent(clock, new Percept(learned.guid(), null)));
+		LongTermMemorySearchProcessor processor = new LongTermMemorySearchProcessor(clock);
+		processor.setLTM(memory);
+		
+		assertThat(processor.process(Collections.emptyList(), workingMemory), is(nullValue()));
+		
+		memory.store(learned);
+		List<Event> result = processor.process(Collections.emptyList(), workingMemory);
+		assertThat(result, is(not(nullValue())));
+		assertThat(result.get(0), instanceOf(MemoryEvent.class));
+	}
+
 	@SuppressWarnings("unchecked")
 	private static <T> List<T> listOf(T... values) {
 		return Arrays.asList(values);
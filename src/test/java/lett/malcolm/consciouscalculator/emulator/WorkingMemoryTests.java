@@ -0,0 +1,300 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator;
+
+import static lett.malcolm.consciouscalculator.testutils.AssertThrows.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import lett.malcolm.consciouscalculator.emulator.events.PerceptEvent;
+import lett.malcolm.consciouscalculator.emulator.events.TextRequestEvent;
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventInterest;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
+import lett.malcolm.consciouscalculator.emulator.interfaces.IncrementalProcessor;
+import lett.malcolm.consciouscalculator.emulator.wm.ExponentialStrengthDecay;
+import lett.malcolm.consciouscalculator.emulator.wm.HandledFirstEvictionPolicy;
+import lett.malcolm.consciouscalculator.emulator.wm.OldestEvictionPolicy;
+
+/**
+ * @author Malcolm Lett
+ */
+public class WorkingMemoryTests {
+	private WorkingMemory memory;
+	private Clock clock = Clock.systemDefaultZone();
+	
+	@Before
+	public void setup() {
+		memory = new WorkingMemory(100);
+	}
+	
+	@Test
+	public void emptyWhenConstructed() {
+		assertThat(memory.all(), is(empty()));
+		assertThat(memory.top(), is(nullValue()));
+		assertThat(memory.get("unknown"), is(nullValue()));
+	}
+	
+	@Test
+	public void iteratesInStrengthOrder() {
+		Event weak = eventOf("weak", 0.2);
+		Event strong = eventOf("strong", 0.8);
+		Event middle = eventOf("middle", 0.5);
+		memory.store(weak);
+		memory.store(strong);
+		memory.store(middle);
+		
+		assertThat(dataOf(memory.all()), contains("strong", "middle", "weak"));
+		assertThat(memory.top(), is(sameInstance(strong)));
+		assertThat(memory.get(weak.guid()), is(sameInstance(weak)));
+	}
+	
+	@Test
+	public void keepsEventsWithSameStrengthInStoredOrder() {
+		memory.store(eventOf("first", 0.5));
+		memory.store(eventOf("second", 0.5));
+		memory.store(eventOf("third", 0.5));
+		
+		assertThat(dataOf(memory.all()), contains("first", "second", "third"));
+	}
+
+	@Test
+	public void replacesEventWithSameGuid() {
+		Event original = eventOf("original", 0.5);
+		memory.store(original);
+		memory.store(eventOf("other", 0.4));
+		
+		Event updated = original.clone();
+		updated.tags().add(EventTag.HANDLED);
+		updated.setStrength(0.3);
+		memory.store(updated);
+		
+		assertThat(memory.all(), hasSize(2));
+		assertThat(memory.get(original.guid()), is(sameInstance(updated)));
+		assertThat(dataOf(memory.all()), contains("other", "original"));
+	}
+	
+	@Test
+	public void retainsOrderAfterDegrading() {
+		memory.store(eventOf("strong", 0.6));
+		memory.degradeStrengths();
+		memory.store(eventOf("new", 0.55));
+		memory.degradeStrengths();
+		memory.store(eventOf("weak", 0.1));
+		
+		assertThat(dataOf(memory.all()), contains("strong", "new", "weak"));
+		assertThat(memory.top().strength(), is(closeTo(0.58, 0.00001)));
+	}
+	
+	@Test
+	public void retainsOrderAfterExponentialDecay() {
+		memory = new WorkingMemory(100, new ExponentialStrengthDecay(0.5));
+		memory.store(eventOf("strong", 0.8));
+		memory.degradeStrengths();
+		memory.store(eventOf("new", 0.5));
+		memory.store(eventOf("weak", 0.3));
+		memory.degradeStrengths();
+		
+		assertThat(dataOf(memory.all()), contains("new", "strong", "weak"));
+		assertThat(memory.get(memory.top().guid()).strength(), is(closeTo(0.25, 0.00001)));
+		assertThat(memory.all().stream().mapToDouble(Event::strength).sum(), is(closeTo(0.25 + 0.2 + 0.15, 0.00001)));
+	}
+	
+	@Test
+	public void findsChainsByReference() {
+		Event e1 = eventOf("e1", 0.5);
+		Event e2 = eventOf("e2", 0.5);
+		Event e3 = eventOf("e3", 0.5);
+		e2.references().add(e1.guid());
+		e3.references().add(e2.guid());
+		memory.store(e1);
+		memory.store(e2);
+		memory.store(e3);
+		
+		assertThat(dataOf(memory.getChainStartingWith(e1)), contains("e1", "e2", "e3"));
+		assertThat(dataOf(memory.getChainEndingWith(e3)), contains("e1", "e2", "e3"));
+		assertThat(memory.containsChainFromTo(e1, e3), is(true));
+		assertThat(memory.containsChainFromTo(e3, e1), is(false));
+	}
+
+	@Test
+	public void updatesReferencesWhenReplaced() {
+		Event e1 = eventOf("e1", 0.5);
+		Event e2 = eventOf("e2", 0.5);
+		Event e3 = eventOf("e3", 0.5);
+		e3.references().add(e1.guid());
+		memory.store(e1);
+		memory.store(e2);
+		memory.store(e3);
+		
+		Event updated = e3.clone();
+		updated.references().clear();
+		updated.references().add(e2.guid());
+		memory.store(updated);
+		
+		assertThat(memory.getReferencesTo(e1.guid()), is(empty()));
+		assertThat(dataOf(memory.getReferencesTo(e2.guid())), contains("e3"));
+		assertThat(dataOf(memory.getChainStartingWith(e1)), contains("e1"));
+	}
+
+	@Test
+	public void evictsWeakestWhenOverMaxSize() {
+		memory = new WorkingMemory(2);
+		memory.store(eventOf("middle", 0.5));
+		memory.store(eventOf("weak", 0.2));
+		memory.store(eventOf("strong", 0.8));
+		
+		assertThat(dataOf(memory.all()), contains("strong", "middle"));
+		assertThat(memory.evictionCount(), is(1L));
+	}
+	
+	@Test
+	public void evictsWhenOverMaxTotalSize() {
+		memory.setMaxTotalSize(2);
+		memory.setEvictionPolicy(new OldestEvictionPolicy());
+		memory.store(eventOf("first", 0.8));
+		memory.store(eventOf("second", 0.5));
+		memory.store(eventOf("third", 0.2));
+		
+		assertThat(dataOf(memory.all()), contains("second", "third"));
+		assertThat(memory.totalSize(), is(2L));
+		assertThat(memory.evictedSize(), is(1L));
+	}
+	
+	@Test
+	public void evictsHandledFirstAndSpillsToSTM() {
+		ShortTermMemory stm = new ShortTermMemory(10);
+		memory = new WorkingMemory(2);
+		memory.setEvictionPolicy(new HandledFirstEvictionPolicy());
+		memory.setSpillTo(stm);
+		
+		Event handled = eventOf("handled", 0.8);
+		handled.tags().add(EventTag.HANDLED);
+		memory.store(handled);
+		memory.store(eventOf("weak", 0.2));
+		memory.store(eventOf("new", 0.5));
+		
+		assertThat(dataOf(memory.all()), contains("new", "weak"));
+		assertThat(dataOf(stm.all()), contains("handled"));
+	}
+	
+	@Test
+	public void maintainsCandidatesForInterest() {
+		EventInterest interest = EventInterest.of(TextRequestEvent.class).excluding(EventTag.HANDLED);
+		Event e1 = eventOf("e1", 0.5);
+		memory.store(e1);
+		memory.subscribe(interest);
+		memory.store(eventOf("e2", 0.8));
+		memory.store(new PerceptEvent(clock, null));
+		
+		Event handled = e1.clone();
+		handled.tags().add(EventTag.HANDLED);
+		memory.store(handled);
+		memory.store(eventOf("e3", 0.2));
+		
+		assertThat(dataOf(memory.candidates(interest)), contains("e2", "e3"));
+		assertThat(memory.all(), hasSize(4));
+	}
+	
+	@Test
+	public void tracksPendingPerProcessorUntilCleared() {
+		EventInterest interest = EventInterest.of(TextRequestEvent.class);
+		IncrementalProcessor first = incrementalProcessorOf(interest);
+		IncrementalProcessor second = incrementalProcessorOf(interest);
+		Event e1 = eventOf("e1", 0.5);
+		memory.store(e1);
+		memory.store(eventOf("e2", 0.8));
+		assertThat(dataOf(memory.pending(first)), contains("e2", "e1"));
+		assertThat(dataOf(memory.pending(second)), contains("e2", "e1"));
+		
+		memory.clearPending(first);
+		assertThat(memory.pending(first), is(empty()));
+		assertThat(memory.pending(second), hasSize(2));
+		
+		memory.store(e1.clone());
+		memory.store(eventOf("e3", 0.2));
+		assertThat(dataOf(memory.pending(first)), contains("e1", "e3"));
+		assertThat(dataOf(memory.candidates(interest)), contains("e2", "e1", "e3"));
+	}
+	
+	@Test
+	public void rejectsModificationWhileReadOnly() {
+		EventInterest interest = EventInterest.of(TextRequestEvent.class);
+		memory.subscribe(interest);
+		memory.store(eventOf("e1", 0.5));
+		memory.setReadOnly(true);
+		
+		assertThrows(IllegalStateException.class, () -> memory.store(eventOf("e2", 0.5)));
+		assertThrows(IllegalStateException.class, () -> memory.degradeStrengths());
+		assertThrows(IllegalStateException.class, () -> memory.subscribe(EventInterest.of(PerceptEvent.class)));
+		assertThat(dataOf(memory.candidates(interest)), contains("e1"));
+		
+		memory.setReadOnly(false);
+		memory.store(eventOf("e2", 0.5));
+		assertThat(memory.all(), hasSize(2));
+	}
+	
+	@Test
+	public void retainsSubscriptionsWhenCleared() {
+		EventInterest interest = EventInterest.of(TextRequestEvent.class);
+		memory.subscribe(interest);
+		memory.store(eventOf("e1", 0.5));
+		memory.degradeStrengths();
+		memory.clear();
+		
+		assertThat(memory.all(), is(empty()));
+		assertThat(memory.candidates(interest), is(empty()));
+		
+		memory.store(eventOf("e2", 0.5));
+		assertThat(dataOf(memory.candidates(interest)), contains("e2"));
+		assertThat(memory.top().strength(), is(0.5));
+	}
+	
+	private Event eventOf(String text, double strength) {
+		Event event = new TextRequestEvent(clock, text);
+		event.setStrength(strength);
+		return event;
+	}
+	
+	private static IncrementalProcessor incrementalProcessorOf(EventInterest interest) {
+		return new IncrementalProcessor() {
+			@Override
+			public EventInterest interest() {
+				return interest;
+			}
+			
+			@Override
+			public List<Event> process(List<Event> events, WorkingMemory memory) {
+				return null;
+			}
+		};
+	}
+	
+	private static List<Object> dataOf(Iterable<Event> events) {
+		List<Object> list = new ArrayList<>();
+		events.forEach(e -> list.add(e.data()));
+		return list;
+	}
+}
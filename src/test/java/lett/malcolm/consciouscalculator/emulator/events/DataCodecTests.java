@@ -0,0 +1,167 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.events;
+
+import static lett.malcolm.consciouscalculator.testutils.AssertThrows.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.EventTag;
+import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
+
+/**
+ * @author Malcolm Lett
+ */
+public class DataCodecTests {
+	private final Clock clock = Clock.systemDefaultZone();
+	
+	@Test
+	public void roundTripsDataRulesTypes() throws IOException {
+		Map<String, Object> map = new HashMap<>();
+		map.put("A", listOf(true, "true", -3, 0.42));
+		map.put("B", null);
+		map.put("C", new Percept("ref", listOf(1, 2)));
+		List<Object> data = listOf("some", Integer.MIN_VALUE, Integer.MAX_VALUE, false, map);
+		
+		Object result = roundTrip(data).get(0);
+		
+		assertThat(result, is(data));
+		assertThat(DataRules.isSame(result, data), is(true));
+	}
+	
+	@Test
+	public void roundTripsEvents() throws IOException {
+		BaseEvent event = new MemoryEvent(clock, "type", listOf("a", 3));
+		event.setStrength(0.75);
+		event.tags().add(EventTag.COMPLETED);
+		event.references().add("other-guid");
+		
+		Event result = (Event) roundTrip(event).get(0);
+		
+		assertThat(result, is(instanceOf(MemoryEvent.class)));
+		assertThat(result.guid(), is(event.guid()));
+		assertThat(result.timestamp(), is(event.timestamp()));
+		assertThat(result.strength(), is(0.75));
+		assertThat(result.tags(), is(event.tags()));
+		assertThat(result.references(), is(event.references()));
+		assertThat(result.data(), is(event.data()));
+	}
+	
+	@Test
+	public void preservesSharedObjects() throws IOException {
+		Event event = new TextRequestEvent(clock, "3 + 5");
+		List<Object> list = new ArrayList<>();
+		list.add("item");
+		
+		List<Object> result = roundTrip(event, list, event, list);
+		
+		assertThat(result.get(2), is(sameInstance(result.get(0))));
+		assertThat(result.get(3), is(sameInstance(result.get(1))));
+	}
+	
+	@Test
+	public void internsRepeatedStrings() {
+		String guid = "0c2b8e12-4f2f-4a7e-9d0e-5f6a7b8c9d0e";
+		assertThat(encode(guid, guid, guid).length, is(lessThan(encode(guid).length + 3 * 2)));
+	}
+	
+	@Test
+	public void rejectsInvalidTypes() {
+		assertThrows(IllegalArgumentException.class, () -> encode(3L));
+		assertThrows(IllegalArgumentException.class, () -> encode(new Object()));
+	}
+	
+	@Test
+	public void knowsEveryEventType() throws ClassNotFoundException {
+		ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+		scanner.addIncludeFilter(new AssignableTypeFilter(BaseEvent.class));
+		Set<Class<?>> types = new HashSet<>();
+		for (BeanDefinition candidate: scanner.findCandidateComponents("lett.malcolm.consciouscalculator")) {
+			types.add(Class.forName(candidate.getBeanClassName()));
+		}
+		
+		assertThat(types, is(not(empty())));
+		assertThat(new HashSet<Class<?>>(DataCodec.eventTypes()), is(types));
+	}
+	
+	@Test
+	public void rejectsUnknownEventTypes() {
+		assertThrows(IllegalArgumentException.class, () -> encode(new BaseEvent(clock) {
+			private static final long serialVersionUID = 1L;
+		}));
+	}
+	
+	@Test
+	public void rejectsPerceptWithinItself() throws IOException {
+		List<Object> data = new ArrayList<>();
+		Percept percept = new Percept("ref", data);
+		data.add(percept);
+		assertThrows(IllegalArgumentException.class, () -> encode(percept));
+		
+		// but may otherwise appear more than once
+		Percept shared = new Percept("ref", 3);
+		List<?> result = (List<?>) roundTrip(listOf(shared, shared)).get(0);
+		assertThat(result.get(1), is(sameInstance(result.get(0))));
+	}
+	
+	private List<Object> roundTrip(Object... values) throws IOException {
+		DataCodec.Reader reader = new DataCodec.Reader(new ByteArrayInputStream(encode(values)), clock);
+		List<Object> result = new ArrayList<>();
+		for (int i = 0; i < values.length; i++) {
+			result.add(reader.readValue());
+		}
+		return result;
+	}
+	
+	private static byte[] encode(Object... values) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataCodec.Writer writer = new DataCodec.Writer(out);
+		try {
+			for (Object value: values) {
+				writer.writeValue(value);
+			}
+			writer.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+	
+	private static List<Object> listOf(Object... items) {
+		return new ArrayList<>(Arrays.asList(items));
+	}
+}
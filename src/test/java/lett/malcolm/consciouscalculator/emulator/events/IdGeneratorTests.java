@@ -0,0 +1,103 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.events;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import lett.malcolm.consciouscalculator.emulator.Emulator;
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+import lett.malcolm.consciouscalculator.emulator.interfaces.IdGenerator;
+import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
+import lett.malcolm.consciouscalculator.utils.Events;
+
+/**
+ * @author Malcolm Lett
+ */
+public class IdGeneratorTests {
+	@Test
+	public void countsInPaddedHex() {
+		CounterIdGenerator ids = new CounterIdGenerator(7);
+		assertThat(ids.nextId(), is("00001-7"));
+		for (int i = 0; i < 0x1e; i++) {
+			ids.nextId();
+		}
+		assertThat(ids.nextId(), is("00020-7"));
+		assertThat(ids.count(), is(32L));
+	}
+	
+	@Test
+	public void counterIdsWorkAsGuids() {
+		String guid = new CounterIdGenerator(3).nextId();
+		assertThat(Events.toShortGuid(guid), is("00001"));
+		
+		Percept percept = Guids.callWith(new CounterIdGenerator(3), () -> new Percept("NumberFact", 3));
+		assertThat(percept.guid(), is("00001-3"));
+		assertThat(percept.toString(), is("Number#00001(3)"));
+		assertThat(Guids.current(), is(sameInstance(RandomIdGenerator.INSTANCE)));
+	}
+	
+	@Test
+	public void seededIdsRepeat() {
+		IdGenerator first = new SeededIdGenerator(42);
+		IdGenerator second = new SeededIdGenerator(42);
+		for (int i = 0; i < 10; i++) {
+			assertThat(second.nextId(), is(first.nextId()));
+		}
+		assertThat(new SeededIdGenerator(43).nextId(), is(not(new SeededIdGenerator(42).nextId())));
+	}
+	
+	@Test
+	public void randomIdsAreUuids() {
+		Set<String> ids = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			String id = RandomIdGenerator.INSTANCE.nextId();
+			assertThat(id.matches("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}"), is(true));
+			ids.add(id);
+		}
+		assertThat(ids, hasSize(1000));
+	}
+	
+	@Test
+	public void emulatorUsesItsGeneratorIncludingInParallel() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Emulator emulator = new Emulator();
+			emulator.setIdGenerator(new CounterIdGenerator(9));
+			emulator.setProcessorPool(pool);
+			assertThat(emulator.sendCommand("3 + 5"), contains("8"));
+			
+			List<String> guids = new ArrayList<>();
+			for (Event event: emulator.snapshot().workingMemory()) {
+				guids.add(event.guid());
+			}
+			assertThat(guids, is(not(empty())));
+			assertThat(guids, everyItem(endsWith("-9")));
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.events;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import lett.malcolm.consciouscalculator.emulator.interfaces.Percept;
+
+/**
+ * @author Malcolm Lett
+ */
+public class ReferenceSetTests {
+	@Test
+	public void holdsEveryKindOfId() {
+		List<String> ids = Arrays.asList(
+				UUID.randomUUID().toString(),
+				new CounterIdGenerator(7).nextId(),
+				"NumberFact",
+				"NumberFact.Name",
+				null);
+		
+		ReferenceSet set = new ReferenceSet();
+		set.addAll(ids);
+		assertThat(set.size(), is(ids.size()));
+		assertThat(new ArrayList<>(set), is(ids));
+		for (String id: ids) {
+			assertThat(set.contains(id), is(true));
+		}
+	}
+	
+	@Test
+	public void findsEqualStringsInSmallAndIndexedSets() {
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			ids.add((i % 3 == 0) ? new CounterIdGenerator(i).nextId() : UUID.randomUUID().toString());
+		}
+		
+		// small sets are searched linearly, larger ones by index
+		for (int size = 0; size <= ids.size(); size++) {
+			ReferenceSet set = new ReferenceSet(ids.subList(0, size));
+			for (int i = 0; i < ids.size(); i++) {
+				assertThat(set.contains(new String(ids.get(i))), is(i < size));
+			}
+			assertThat(set.contains("never-added-" + UUID.randomUUID()), is(false));
+			assertThat(set.contains(5), is(false));
+			assertThat(set.contains(null), is(false));
+		}
+	}
+	
+	@Test
+	public void behavesAsSetOfStrings() {
+		Set<String> expected = new HashSet<>();
+		ReferenceSet set = new ReferenceSet();
+		for (int i = 0; i < 100; i++) {
+			String id = (i % 3 == 0) ? "Fact" + i : UUID.randomUUID().toString();
+			assertThat(set.add(id), is(expected.add(id)));
+			assertThat(set.add(id), is(false));
+		}
+		assertThat(set, is(expected));
+		assertThat(expected, is((Set<String>) set));
+		assertThat(set.hashCode(), is(expected.hashCode()));
+		
+		// remove every second one, from a mix of indexed and linear searches
+		Iterator<String> it = set.iterator();
+		while (it.hasNext()) {
+			String id = it.next();
+			if (id.hashCode() % 2 == 0) {
+				it.remove();
+				expected.remove(id);
+			}
+		}
+		assertThat(set, is(expected));
+		assertThat(set.hashCode(), is(expected.hashCode()));
+		
+		for (String id: new ArrayList<>(expected)) {
+			assertThat(set.remove(id), is(true));
+			assertThat(set.remove(id), is(false));
+		}
+		assertThat(set.isEmpty(), is(true));
+	}
+	
+	@Test
+	public void copiesAreIndependent() {
+		ReferenceSet set = new ReferenceSet(Arrays.asList("a", "b"));
+		ReferenceSet copy = set.clone();
+		copy.add("c");
+		assertThat(set, is(new HashSet<>(Arrays.asList("a", "b"))));
+		assertThat(copy, is(new HashSet<>(Arrays.asList("a", "b", "c"))));
+		assertThat(copy.equals(set), is(false));
+		
+		copy.remove("c");
+		assertThat(copy.equals(set), is(true));
+	}
+	
+	@Test
+	public void serializesAsStrings() throws IOException, ClassNotFoundException {
+		ReferenceSet set = new ReferenceSet(Arrays.asList(
+				UUID.randomUUID().toString(), "00002-3", "ExpressionFact"));
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(set);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			Object copy = in.readObject();
+			assertThat(copy, is(instanceOf(ReferenceSet.class)));
+			assertThat(new ArrayList<>((ReferenceSet) copy), is(new ArrayList<>(set)));
+		}
+	}
+	
+	@Test
+	public void perceptsCopyTheirReferences() {
+		Set<String> references = new HashSet<>(Arrays.asList("NumberFact"));
+		Percept percept = new Percept("guid", references, 3);
+		references.add("OperatorFact");
+		
+		assertThat(percept.references(), contains("NumberFact"));
+		assertThat(percept, is(new Percept("guid", new HashSet<>(Arrays.asList("NumberFact")), 3)));
+		assertThat(percept.clone(), is(percept));
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.journal;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import lett.malcolm.consciouscalculator.emulator.CommandResult;
+import lett.malcolm.consciouscalculator.emulator.Emulator;
+import lett.malcolm.consciouscalculator.emulator.lowlevel.TickScheduler;
+
+/**
+ * @author Malcolm Lett
+ */
+public class ReplayEngineTests {
+	@Test
+	public void recordsEveryTick() throws IOException {
+		ByteArrayOutputStream journal = new ByteArrayOutputStream();
+		Emulator emulator = new Emulator();
+		emulator.setJournal(new TickJournal(journal));
+		CommandResult result = emulator.execute("3 + 5");
+		
+		TickJournalReader reader = new TickJournalReader(new ByteArrayInputStream(journal.toByteArray()));
+		JournalRun run = reader.readRun();
+		assertThat(run.stopReason(), is(result.stopReason()));
+		assertThat(run.ticks().size(), is(result.ticks()));
+		assertThat(run.ticks().get(0).commands(), contains("3 + 5"));
+		assertThat(run.ticks().get(0).triggers(), is(1));
+		assertThat(run.ticks().get(1).commands(), is(empty()));
+		assertThat(run.ticks().get(1).feedback(), hasSize(1));
+		assertThat(reader.readRun(), is(nullValue()));
+	}
+	
+	@Test
+	public void replaysIdenticallyWithSameSeed() throws IOException {
+		ByteArrayOutputStream journal = new ByteArrayOutputStream();
+		Emulator emulator = new Emulator();
+		emulator.setJournal(new TickJournal(journal));
+		List<String> spoken = new ArrayList<>();
+		spoken.addAll(emulator.sendCommand("3 + 5"));
+		spoken.addAll(emulator.sendCommand("3 + 5 = 8"));
+		
+		List<List<String>> first = new ArrayList<>();
+		ReplayResult result = replay(journal.toByteArray(), 42, first);
+		List<List<String>> second = new ArrayList<>();
+		replay(journal.toByteArray(), 42, second);
+		
+		assertThat(result.isFaithful(), is(true));
+		assertThat(result.results(), hasSize(2));
+		assertThat(result.results().stream().flatMap(r -> r.spoken().stream()).collect(Collectors.toList()), is(spoken));
+		assertThat(first, hasSize(result.tickCount()));
+		assertThat(second, is(first));
+	}
+	
+	@Test
+	public void stopsWhereRecordingStoppedEarly() throws IOException {
+		ByteArrayOutputStream journal = new ByteArrayOutputStream();
+		Emulator emulator = new Emulator();
+		emulator.setTickScheduler(new TickScheduler(2, 0, TimeUnit.MILLISECONDS, 0));
+		emulator.setJournal(new TickJournal(journal));
+		emulator.sendCommand("3 + 5");
+		
+		ReplayResult result = new ReplayEngine().replay(new ByteArrayInputStream(journal.toByteArray()));
+		assertThat(result.isFaithful(), is(true));
+		assertThat(result.tickCount(), is(2));
+	}
+	
+	private static ReplayResult replay(byte[] journal, long seed, List<List<String>> workingMemoryByTick) throws IOException {
+		ReplayEngine engine = new ReplayEngine(seed);
+		engine.setTickObserver((tick, snapshot) -> workingMemoryByTick.add(snapshot.workingMemory().stream()
+				.map(e -> e.guid() + "@" + e.strength())
+				.sorted()
+				.collect(Collectors.toList())));
+		return engine.replay(new ByteArrayInputStream(journal));
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.lowlevel;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * @author Malcolm Lett
+ */
+public class MpscArrayQueueTests {
+	@Test
+	public void keepsOrderUntilFull() {
+		MpscArrayQueue<String> queue = new MpscArrayQueue<>(2);
+		assertThat(queue.offer("a"), is(true));
+		assertThat(queue.offer("b"), is(true));
+		assertThat(queue.offer("c"), is(false));
+		assertThat(queue, contains("a", "b"));
+		
+		assertThat(queue.poll(), is("a"));
+		assertThat(queue.offer("c"), is(true));
+		assertThat(queue.poll(), is("b"));
+		assertThat(queue.poll(), is("c"));
+		assertThat(queue.poll(), is(nullValue()));
+		assertThat(queue.isEmpty(), is(true));
+	}
+	
+	@Test
+	public void acceptsConcurrentProducers() throws InterruptedException {
+		int producers = 4;
+		int perProducer = 10_000;
+		MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(64);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int base = p * perProducer;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < perProducer; i++) {
+					while (!queue.offer(base + i)) {
+						Thread.yield();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		
+		// each producer's elements must arrive in order
+		int[] lastSeen = new int[producers];
+		Arrays.fill(lastSeen, -1);
+		int received = 0;
+		while (received < producers * perProducer) {
+			Integer value = queue.poll();
+			if (value == null) {
+				Thread.yield();
+				continue;
+			}
+			int producer = value / perProducer;
+			assertThat(value % perProducer, is(lastSeen[producer] + 1));
+			lastSeen[producer] = value % perProducer;
+			received++;
+		}
+		for (Thread thread: threads) {
+			thread.join();
+		}
+		assertThat(queue.poll(), is(nullValue()));
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.lowlevel;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.Test;
+
+import lett.malcolm.consciouscalculator.emulator.Emulator;
+import lett.malcolm.consciouscalculator.emulator.events.ActionEvent;
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+
+/**
+ * @author Malcolm Lett
+ */
+public class TickClockTests {
+	@Test
+	public void onlyReadsSourceWhenAdvanced() {
+		ManualClock source = new ManualClock(Instant.ofEpochSecond(100));
+		TickClock clock = new TickClock(source);
+		
+		source.advance(Duration.ofSeconds(1));
+		assertThat(clock.tick(), is(0L));
+		assertThat(clock.instant(), is(Instant.ofEpochSecond(100)));
+		
+		clock.advance();
+		assertThat(clock.tick(), is(1L));
+		assertThat(clock.instant(), is(Instant.ofEpochSecond(101)));
+	}
+	
+	@Test
+	public void eventsInSameTickShareTimestamp() {
+		TickClock clock = new TickClock(new ManualClock(Instant.ofEpochSecond(100)));
+		clock.advance();
+		Event first = new ActionEvent(clock, "first");
+		Event second = new ActionEvent(clock, "second");
+		clock.advance();
+		Event third = new ActionEvent(clock, "third");
+		
+		assertThat(first.tick(), is(1L));
+		assertThat(second.timestamp(), is(sameInstance(first.timestamp())));
+		assertThat(third.tick(), is(2L));
+	}
+	
+	@Test
+	public void emulatorAdvancesOncePerTick() {
+		TickClock clock = new TickClock(new ManualClock(Instant.EPOCH));
+		Emulator emulator = new Emulator(clock);
+		int ticks = emulator.execute("3 + 5").ticks();
+		
+		assertThat(clock.tick(), is((long) ticks));
+		for (Event event: emulator.snapshot().workingMemory()) {
+			assertThat(event.tick(), is(both(greaterThan(0L)).and(lessThanOrEqualTo((long) ticks))));
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.lowlevel;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author Malcolm Lett
+ */
+public class TickSchedulerTests {
+	@Test
+	public void limitsTickRate() {
+		TickScheduler scheduler = new TickScheduler(0, 0, TimeUnit.MILLISECONDS, 100);
+		TickScheduler.Run run = scheduler.start();
+		for (int i = 0; i < 6; i++) {
+			assertThat(run.beforeTick(), is(nullValue()));
+		}
+		run.finish(StopReason.SETTLED);
+		
+		// 5 intervals of 10ms each
+		assertThat(run.elapsed(TimeUnit.MILLISECONDS), is(greaterThanOrEqualTo(50L)));
+		assertThat(scheduler.tickCount(), is(6L));
+		assertThat(scheduler.stopCount(StopReason.SETTLED), is(1L));
+	}
+	
+	@Test
+	public void stopsAtDeadline() {
+		// rate limit would take the run past its deadline on the second tick
+		TickScheduler scheduler = new TickScheduler(0, 50, TimeUnit.MILLISECONDS, 10);
+		TickScheduler.Run run = scheduler.start();
+		assertThat(run.beforeTick(), is(nullValue()));
+		assertThat(run.beforeTick(), is(StopReason.DEADLINE));
+		assertThat(run.ticks(), is(1));
+	}
+}
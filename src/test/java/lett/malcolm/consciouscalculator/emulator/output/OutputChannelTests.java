@@ -0,0 +1,136 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.output;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import lett.malcolm.consciouscalculator.emulator.output.OutputChannel.Cursor;
+
+/**
+ * @author Malcolm Lett
+ */
+public class OutputChannelTests {
+	@Test
+	public void broadcastsToEachConsumer() {
+		OutputChannel channel = new OutputChannel(4);
+		Cursor first = channel.subscribe(SlowConsumerPolicy.DROP);
+		Cursor second = channel.subscribe(SlowConsumerPolicy.DROP);
+		channel.publish("a");
+		channel.publish("b");
+		
+		assertThat(drain(first), contains("a", "b"));
+		assertThat(drain(second), contains("a", "b"));
+		assertThat(first.poll(), is(nullValue()));
+	}
+	
+	@Test
+	public void onlySeesOutputsAfterSubscribing() {
+		OutputChannel channel = new OutputChannel(4);
+		channel.publish("a");
+		Cursor cursor = channel.subscribe(SlowConsumerPolicy.DROP);
+		channel.publish("b");
+		
+		assertThat(drain(cursor), contains("b"));
+	}
+	
+	@Test
+	public void dropsOldestForSlowConsumer() {
+		OutputChannel channel = new OutputChannel(4);
+		Cursor cursor = channel.subscribe(SlowConsumerPolicy.DROP);
+		for (int i = 0; i < 10; i++) {
+			channel.publish("" + i);
+		}
+		
+		assertThat(drain(cursor), contains("6", "7", "8", "9"));
+		assertThat(cursor.droppedCount(), is(6L));
+	}
+	
+	@Test
+	public void overflowsToDiskForSlowConsumer() {
+		OutputChannel channel = new OutputChannel(4);
+		Cursor cursor = channel.subscribe(SlowConsumerPolicy.OVERFLOW_TO_DISK);
+		for (int i = 0; i < 6; i++) {
+			channel.publish("" + i);
+		}
+		assertThat(cursor.poll(), is("0"));
+		for (int i = 6; i < 10; i++) {
+			channel.publish("" + i);
+		}
+		
+		assertThat(drain(cursor), contains("1", "2", "3", "4", "5", "6", "7", "8", "9"));
+		assertThat(cursor.droppedCount(), is(0L));
+		assertThat(cursor.spilledCount(), is(6L));
+		cursor.close();
+	}
+	
+	@Test
+	public void blocksProducerForSlowConsumer() throws InterruptedException {
+		OutputChannel channel = new OutputChannel(2);
+		Cursor cursor = channel.subscribe(SlowConsumerPolicy.BLOCK);
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < 100; i++) {
+				channel.publish("" + i);
+			}
+		});
+		producer.start();
+		
+		List<String> received = new ArrayList<>();
+		String output;
+		while (received.size() < 100 && (output = cursor.poll(10, TimeUnit.SECONDS)) != null) {
+			received.add(output);
+		}
+		producer.join(10_000);
+		
+		assertThat(received.size(), is(100));
+		assertThat(received.get(99), is("99"));
+		assertThat(cursor.droppedCount(), is(0L));
+	}
+	
+	@Test
+	public void closingReleasesBlockedProducer() throws InterruptedException {
+		OutputChannel channel = new OutputChannel(2);
+		Cursor cursor = channel.subscribe(SlowConsumerPolicy.BLOCK);
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < 10; i++) {
+				channel.publish("" + i);
+			}
+		});
+		producer.start();
+		
+		cursor.close();
+		producer.join(10_000);
+		assertThat(producer.isAlive(), is(false));
+		assertThat(channel.publishedCount(), is(10L));
+	}
+	
+	private static List<String> drain(Cursor cursor) {
+		List<String> result = new ArrayList<>();
+		String output;
+		while ((output = cursor.poll()) != null) {
+			result.add(output);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,175 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.session;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import lett.malcolm.consciouscalculator.emulator.CommandResult;
+import lett.malcolm.consciouscalculator.emulator.Emulator;
+import lett.malcolm.consciouscalculator.emulator.EmulatorSnapshot;
+import lett.malcolm.consciouscalculator.emulator.interfaces.Event;
+
+/**
+ * @author Malcolm Lett
+ */
+public class ActorSessionManagerTests {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void multiplexesSessionsOverFewWorkers() throws Exception {
+		ForkJoinPool workers = new ForkJoinPool(2, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+		ActorSessionManager manager = new ActorSessionManager(Emulator::new, workers, 1);
+		try {
+			List<CompletableFuture<CommandResult>> results = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				results.add(manager.sendCommand("session-" + i, "3 + 5"));
+				results.add(manager.sendCommand("session-" + i, "3 + 5 = 9"));
+			}
+			
+			for (int i = 0; i < results.size(); i += 2) {
+				assertThat(results.get(i).get(10, TimeUnit.SECONDS).spoken(), contains("8"));
+				assertThat(results.get(i + 1).get(10, TimeUnit.SECONDS).spoken(), contains("false"));
+			}
+			assertThat(manager.sessionCount(), is(20));
+			assertThat(manager.messageCount(), is(40L));
+		} finally {
+			manager.closeAll();
+			workers.shutdown();
+		}
+	}
+	
+	@Test
+	public void snapshotsInTurnWithCommands() throws Exception {
+		ActorSessionManager manager = new ActorSessionManager(Emulator::new);
+		try {
+			manager.sendCommand("a", "3 + 5");
+			EmulatorSnapshot snapshot = manager.snapshot("a").get(10, TimeUnit.SECONDS);
+			
+			assertThat(snapshot.workingMemory(), is(not(empty())));
+			assertThat(manager.snapshot("unknown"), is(nullValue()));
+		} finally {
+			manager.closeAll();
+			manager.workers().shutdown();
+		}
+	}
+	
+	@Test
+	public void completesExceptionallyOnError() throws Exception {
+		ActorSessionManager manager = new ActorSessionManager(() -> new Emulator() {
+			@Override
+			public synchronized CommandResult execute(String text) {
+				throw new StackOverflowError("too deep");
+			}
+		});
+		try {
+			CompletableFuture<CommandResult> result = manager.sendCommand("a", "3 + 5");
+			try {
+				result.get(10, TimeUnit.SECONDS);
+				fail("Expected failure");
+			} catch (ExecutionException e) {
+				assertThat(e.getCause(), is(instanceOf(StackOverflowError.class)));
+			}
+			
+			// and carries on with later messages
+			assertThat(manager.snapshot("a").get(10, TimeUnit.SECONDS), is(notNullValue()));
+		} finally {
+			manager.closeAll();
+			manager.workers().shutdown();
+		}
+	}
+	
+	@Test
+	public void hibernatesIdleSessionsAndRevivesOnCommand() throws Exception {
+		ActorSessionManager manager = new ActorSessionManager(Emulator::new);
+		FileSessionStore store = new FileSessionStore(folder.getRoot().toPath());
+		manager.enableHibernation(store, 500, TimeUnit.MILLISECONDS);
+		try {
+			manager.sendCommand("a", "3 + 5").get(10, TimeUnit.SECONDS);
+			
+			// hibernated without being asked
+			waitForHibernation(manager);
+			assertThat(store.contains("a"), is(true));
+			
+			// remembers the earlier command
+			EmulatorSnapshot snapshot = manager.snapshot("a").get(10, TimeUnit.SECONDS);
+			assertThat(snapshot.workingMemory().stream().map(Event::data).collect(Collectors.toList()), hasItem("3 + 5"));
+			assertThat(manager.hibernatedCount(), is(0));
+			assertThat(manager.reviveCount(), is(1L));
+			assertThat(store.contains("a"), is(false));
+		} finally {
+			manager.disableHibernation();
+			manager.closeAll();
+			manager.workers().shutdown();
+		}
+	}
+	
+	@Test
+	public void failsMessageAndKeepsStateWhenUnableToRevive() throws Exception {
+		ActorSessionManager manager = new ActorSessionManager(Emulator::new);
+		FileSessionStore store = new FileSessionStore(folder.getRoot().toPath());
+		manager.enableHibernation(store, 500, TimeUnit.MILLISECONDS);
+		try {
+			manager.sendCommand("a", "3 + 5").get(10, TimeUnit.SECONDS);
+			waitForHibernation(manager);
+			Path saved = folder.getRoot().toPath().resolve("a.session");
+			Files.write(saved, new byte[] { 1, 2, 3 });
+			
+			try {
+				manager.sendCommand("a", "3 + 5 = 8").get(10, TimeUnit.SECONDS);
+				fail("Expected failure");
+			} catch (ExecutionException e) {
+				assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+			}
+			assertThat(store.contains("a"), is(false));
+			assertThat(Files.readAllBytes(folder.getRoot().toPath().resolve("a.session.corrupt")), is(new byte[] { 1, 2, 3 }));
+			
+			// carries on afresh
+			assertThat(manager.sendCommand("a", "3 + 5").get(10, TimeUnit.SECONDS).spoken(), contains("8"));
+			assertThat(manager.hibernatedCount(), is(0));
+		} finally {
+			manager.disableHibernation();
+			manager.closeAll();
+			manager.workers().shutdown();
+		}
+	}
+	
+	private static void waitForHibernation(ActorSessionManager manager) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (manager.hibernatedCount() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(manager.hibernatedCount(), is(1));
+	}
+}
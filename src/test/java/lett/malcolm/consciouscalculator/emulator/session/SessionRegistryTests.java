@@ -0,0 +1,108 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.emulator.session;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import lett.malcolm.consciouscalculator.emulator.CommandResult;
+import lett.malcolm.consciouscalculator.emulator.Emulator;
+
+/**
+ * @author Malcolm Lett
+ */
+public class SessionRegistryTests {
+	@Test
+	public void runsEachSessionSeparately() throws Exception {
+		SessionRegistry registry = new SessionRegistry(Emulator::new);
+		try {
+			CompletableFuture<CommandResult> first = registry.sendCommand("a", "3 + 5");
+			CompletableFuture<CommandResult> second = registry.sendCommand("b", "3 + 5 = 9");
+			
+			assertThat(first.get(10, TimeUnit.SECONDS).spoken(), contains("8"));
+			assertThat(second.get(10, TimeUnit.SECONDS).spoken(), contains("false"));
+			assertThat(registry.sessionCount(), is(2));
+			assertThat(registry.commandCount(), is(2L));
+		} finally {
+			registry.closeAll();
+		}
+		assertThat(registry.sessionCount(), is(0));
+	}
+	
+	@Test
+	public void releasesIdleThreadsAndRestartsOnCommand() throws Exception {
+		SessionRegistry registry = new SessionRegistry(Emulator::new, Executors.defaultThreadFactory(),
+				10, TimeUnit.MILLISECONDS);
+		try {
+			registry.sendCommand("a", "3 + 5").get(10, TimeUnit.SECONDS);
+			waitForNoRunningThreads(registry);
+			
+			assertThat(registry.sendCommand("a", "3 + 5").get(10, TimeUnit.SECONDS).spoken(), contains("8"));
+			assertThat(registry.threadStartCount(), is(2L));
+			assertThat(registry.sessionCount(), is(1));
+		} finally {
+			registry.closeAll();
+		}
+	}
+	
+	@Test
+	public void continuesWithQueuedCommandsAfterInterrupt() throws Exception {
+		CountDownLatch gate = new CountDownLatch(1);
+		SessionRegistry registry = new SessionRegistry(() -> new Emulator() {
+			@Override
+			public CommandResult execute(String command) {
+				if (!command.equals("interrupt")) {
+					return super.execute(command);
+				}
+				try {
+					gate.await();
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+				Thread.currentThread().interrupt();
+				return super.execute("3 + 5");
+			}
+		}, Executors.defaultThreadFactory(), 0, TimeUnit.MILLISECONDS);
+		try {
+			CompletableFuture<CommandResult> first = registry.sendCommand("a", "interrupt");
+			CompletableFuture<CommandResult> second = registry.sendCommand("a", "3 + 5");
+			gate.countDown();
+			
+			first.get(10, TimeUnit.SECONDS);
+			assertThat(second.get(10, TimeUnit.SECONDS).spoken(), contains("8"));
+			assertThat(registry.threadStartCount(), is(2L));
+		} finally {
+			registry.closeAll();
+		}
+	}
+	
+	private static void waitForNoRunningThreads(SessionRegistry registry) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (registry.runningThreadCount() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(registry.runningThreadCount(), is(0));
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.simulation;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * @author Malcolm Lett
+ */
+public class SimulationRunnerTests {
+	@Test
+	public void parsesScriptIgnoringCommentsAndBlankLines() throws IOException {
+		SimulationScript script = SimulationScript.parse("test", new StringReader("# warm up\n3 + 5\n\n  3 + 5 = 8  \n"));
+		assertThat(script.commands(), contains("3 + 5", "3 + 5 = 8"));
+	}
+	
+	@Test
+	public void parsesExpectedOutputs() throws IOException {
+		SimulationScript script = SimulationScript.parse("test", new StringReader("3 + 5 => 8\n3 + 5 = 9 => \n3 + 5 = 8 => true | yes\n3"));
+		assertThat(script.commands(), contains("3 + 5", "3 + 5 = 9", "3 + 5 = 8", "3"));
+		assertThat(script.expectations().get(0), contains("8"));
+		assertThat(script.expectations().get(1), is(empty()));
+		assertThat(script.expectations().get(2), contains("true", "yes"));
+		assertThat(script.expectations().get(3), is(nullValue()));
+	}
+	
+	@Test
+	public void runsIndependentSimulationsInParallel() throws IOException {
+		SimulationScript script = SimulationScript.of("3 + 5", "3 + 5 = 8");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		List<SimulationResult> results;
+		try {
+			SimulationRunner runner = new SimulationRunner(pool);
+			runner.setTickDuration(Duration.ofMillis(5));
+			results = runner.runAll(script, 6);
+		} finally {
+			pool.shutdown();
+		}
+		
+		assertThat(results, hasSize(6));
+		for (SimulationResult result: results) {
+			assertThat(result.run(), is(results.indexOf(result)));
+			assertThat(result.commands(), is(2));
+			assertThat(result.ticks(), is(results.get(0).ticks()));
+			assertThat(result.outputs(), is(2L));
+			assertThat(result.incompleteCommands(), is(0));
+			assertThat(result.workingMemoryHighWater(), is(greaterThan(0)));
+			assertThat(result.virtualMillis(), is(result.ticks() * 5));
+		}
+		
+		StringWriter csv = new StringWriter();
+		SimulationRunner.writeCsv(results, csv);
+		String[] lines = csv.toString().split("\n");
+		assertThat(lines.length, is(7));
+		assertThat(lines[0], is(SimulationResult.CSV_HEADER));
+		assertThat(lines[1].split(",").length, is(SimulationResult.CSV_HEADER.split(",").length));
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * Conscious Calculator - Emulation of a conscious calculator.
+ * Copyright © 2019 Malcolm Lett (malcolm.lett at gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package lett.malcolm.consciouscalculator.simulation;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import lett.malcolm.consciouscalculator.emulator.EmulatorConfig;
+
+/**
+ * @author Malcolm Lett
+ */
+public class SweepRunnerTests {
+	@Test
+	public void buildsEveryCombination() {
+		List<EmulatorConfig> configs = new ConfigGrid(EmulatorConfig.DEFAULT)
+				.vary(EmulatorConfig::withStagnantTriggerTolerance, 3, 5)
+				.vary(EmulatorConfig::withStrengthDecayPerTick, 0.01, 0.02, 0.05)
+				.configs();
+		
+		assertThat(configs, hasSize(6));
+		assertThat(configs.get(0).stagnantTriggerTolerance(), is(3));
+		assertThat(configs.get(0).strengthDecayPerTick(), is(0.01));
+		assertThat(configs.get(5).stagnantTriggerTolerance(), is(5));
+		assertThat(configs.get(5).strengthDecayPerTick(), is(0.05));
+		assertThat(configs.get(5).requestStrength(), is(EmulatorConfig.DEFAULT.requestStrength()));
+	}
+	
+	@Test
+	public void reportsAccuracyOfEachConfig() throws IOException {
+		SimulationScript corpus = SimulationScript.parse("corpus", new StringReader("3 + 5 => 8\n3 + 5 = 9 => false\n"));
+		List<EmulatorConfig> configs = new ConfigGrid(EmulatorConfig.DEFAULT)
+				.vary(EmulatorConfig::withStuckThresholdTickCount, 2, 3)
+				.vary(EmulatorConfig::withMaxSearchResultCount, 5, 10)
+				.configs();
+		
+		ForkJoinPool pool = new ForkJoinPool(4);
+		List<SweepResult> results;
+		try {
+			results = new SweepRunner(new SimulationRunner(pool), pool).sweep(configs, corpus);
+		} finally {
+			pool.shutdown();
+		}
+		
+		assertThat(results, hasSize(4));
+		for (int i = 0; i < results.size(); i++) {
+			assertThat(results.get(i).config(), is(sameInstance(configs.get(i))));
+			assertThat(results.get(i).result().checkedCommands(), is(2));
+		}
+		assertThat(results.get(3).result().accuracy(), is(1.0));
+		assertThat(results.get(3).result().ticksPerCommand(), is(greaterThan(1.0)));
+		
+		StringWriter csv = new StringWriter();
+		SweepRunner.writeCsv(results, csv);
+		String[] lines = csv.toString().split("\n");
+		assertThat(lines.length, is(5));
+		assertThat(lines[1].split(",").length, is(SweepResult.CSV_HEADER.split(",").length));
+	}
+}